@@ -0,0 +1,253 @@
+import java.util.*;
+
+// anytime repairing A* (ARA*) over a Tile grid
+// the first search runs with an inflated heuristic (f = g + weight * h) which heads for the end almost as
+// fast as greedy search, and the path it finds is at most weight times longer than the shortest one.
+// after that the weight is lowered step by step and every new search reuses the costs of the previous one:
+// only the tiles whose cost got better are searched again, so each improvement is much cheaper than a fresh A*.
+// every better path is handed to a listener together with its bound, once the weight reaches 1 the path is optimal
+//
+// the search stops whenever the budget runs out and the best path found so far is kept
+// teleports are treated as empty tiles like in HPA*, a random jump has no fixed cost to improve on
+public class AnytimeAStar {
+
+    // gets every path that is better than the one before, from start to end as cell indices (row * cols + col)
+    // bound is how many times longer than the shortest path it can be at most (1.0 means optimal)
+    public interface PathListener {
+        void improved(int[] path, double bound);
+    }
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+    // weights are kept in tenths so priorities stay integers
+    private final int initialWeight;
+    private final int weightStep;
+
+    // per cell search state, kept between the iterations of one query
+    private final int[] gScore;
+    private final byte[] parentDir;
+    private final boolean[] inOpen;
+    private final boolean[] inIncons;
+    // the iteration a cell was closed in, so closing everything again for the next iteration costs nothing
+    private final short[] closedIn;
+    private int[] incons = new int[64];
+    private int inconsSize = 0;
+    private long[] heap = new long[64];
+    private int heapSize = 0;
+
+    private long expansions = 0;
+    private double bound = Double.POSITIVE_INFINITY;
+    private int iterations = 0;
+
+    public AnytimeAStar(Tile[][] maze, double initialWeight, double weightStep) {
+        if (initialWeight < 1.0 || weightStep <= 0) {
+            throw new IllegalArgumentException("Weight has to be at least 1 and the step positive.");
+        }
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.initialWeight = (int) Math.round(initialWeight * 10);
+        this.weightStep = Math.max(1, (int) Math.round(weightStep * 10));
+
+        int cells = rows * cols;
+        this.gScore = new int[cells];
+        this.parentDir = new byte[cells];
+        this.inOpen = new boolean[cells];
+        this.inIncons = new boolean[cells];
+        this.closedIn = new short[cells];
+    }
+
+    // searches from start to goal until the path is proven optimal or the budget runs out
+    // returns the best path found (cell indices from start to goal) or null if there was none in time
+    // the caller starts the budget, so one budget can cover more than this search
+    public int[] findPath(Tile start, Tile goal, SearchBudget budget, PathListener listener) {
+        int startCell = start.getRow() * cols + start.getCol();
+        int goalCell = goal.getRow() * cols + goal.getCol();
+        int goalRow = goal.getRow();
+        int goalCol = goal.getCol();
+
+        Arrays.fill(gScore, Integer.MAX_VALUE);
+        Arrays.fill(inOpen, false);
+        Arrays.fill(inIncons, false);
+        Arrays.fill(closedIn, (short) 0);
+        inconsSize = 0;
+        heapSize = 0;
+        expansions = 0;
+        bound = Double.POSITIVE_INFINITY;
+        iterations = 0;
+
+        int[] best = null;
+        int weight = initialWeight;
+        gScore[startCell] = 0;
+        inOpen[startCell] = true;
+        push(key(startCell, weight, goalRow, goalCol), startCell);
+
+        while (true) {
+            iterations++;
+            if (iterations > Short.MAX_VALUE) break;
+
+            // improve the path: expand until nothing in the open list can beat the goal any more
+            // (the goal's priority is just its g, so this is the usual A* stop with the inflated heuristic)
+            while (heapSize > 0 && (gScore[goalCell] == Integer.MAX_VALUE || (long) gScore[goalCell] * 10 > (heap[0] >>> 32))) {
+                long entry = pop();
+                int cell = (int) entry;
+                // skip entries that were replaced by a cheaper one
+                if (!inOpen[cell] || (entry >>> 32) != key(cell, weight, goalRow, goalCol)) continue;
+
+                if (budget.check(++expansions) != null) {
+                    return best;
+                }
+                inOpen[cell] = false;
+                closedIn[cell] = (short) iterations;
+
+                int row = cell / cols;
+                int col = cell % cols;
+                int cost = gScore[cell] + 1;
+                for (int dir = 0; dir < 4; dir++) {
+                    int newRow = row + ParentLinks.ROW_STEP[dir];
+                    int newCol = col + ParentLinks.COL_STEP[dir];
+                    if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                    if (maze[newRow][newCol].isWall()) continue;
+                    int next = newRow * cols + newCol;
+                    if (cost >= gScore[next]) continue;
+
+                    gScore[next] = cost;
+                    parentDir[next] = (byte) dir;
+                    if (closedIn[next] == iterations) {
+                        // already closed in this iteration, it waits for the next one
+                        if (!inIncons[next]) {
+                            inIncons[next] = true;
+                            if (inconsSize == incons.length) incons = Arrays.copyOf(incons, inconsSize * 2);
+                            incons[inconsSize++] = next;
+                        }
+                    } else {
+                        inOpen[next] = true;
+                        push(key(next, weight, goalRow, goalCol), next);
+                    }
+                }
+            }
+
+            if (gScore[goalCell] == Integer.MAX_VALUE) {
+                // nothing left to search and the goal was never reached
+                return best;
+            }
+
+            // the real bound can be tighter than the weight: the shortest path is at least
+            // the smallest g + h of any tile we still might improve
+            long lowest = Long.MAX_VALUE;
+            for (int i = 0; i < heapSize; i++) {
+                int cell = (int) heap[i];
+                if (inOpen[cell] && (heap[i] >>> 32) == key(cell, weight, goalRow, goalCol)) {
+                    lowest = Math.min(lowest, (long) gScore[cell] + distance(cell, goalRow, goalCol));
+                }
+            }
+            for (int i = 0; i < inconsSize; i++) {
+                int cell = incons[i];
+                lowest = Math.min(lowest, (long) gScore[cell] + distance(cell, goalRow, goalCol));
+            }
+            // the goal's g can be more than its path: a tile on the way that got cheaper after it was closed
+            // waits in incons and its children keep their old g, so the length comes from the path itself
+            int[] path = pathTo(startCell, goalCell);
+            int length = path.length - 1;
+            double newBound = Math.min(weight / 10.0, lowest == Long.MAX_VALUE ? 1.0 : (double) length / lowest);
+            newBound = Math.max(1.0, newBound);
+
+            if (best == null || best.length > path.length || newBound < bound) {
+                best = path;
+                bound = newBound;
+                if (listener != null) listener.improved(best, bound);
+            }
+            if (bound <= 1.0) {
+                return best;
+            }
+
+            // lower the weight, move the tiles that got cheaper back into the open list and re-sort it
+            int previousWeight = weight;
+            weight = Math.max(10, weight - weightStep);
+            int oldSize = heapSize;
+            long[] old = heap;
+            heap = new long[Math.max(64, oldSize + inconsSize)];
+            heapSize = 0;
+            for (int i = 0; i < oldSize; i++) {
+                int cell = (int) old[i];
+                if (inOpen[cell] && (old[i] >>> 32) == key(cell, previousWeight, goalRow, goalCol)) {
+                    push(key(cell, weight, goalRow, goalCol), cell);
+                }
+            }
+            for (int i = 0; i < inconsSize; i++) {
+                int cell = incons[i];
+                inIncons[cell] = false;
+                inOpen[cell] = true;
+                push(key(cell, weight, goalRow, goalCol), cell);
+            }
+            inconsSize = 0;
+        }
+        return best;
+    }
+
+    private int distance(int cell, int goalRow, int goalCol) {
+        return Math.abs(cell / cols - goalRow) + Math.abs(cell % cols - goalCol);
+    }
+
+    // priority of a cell in tenths: 10 * g + weight * h
+    private long key(int cell, int weight, int goalRow, int goalCol) {
+        return (long) gScore[cell] * 10 + (long) weight * distance(cell, goalRow, goalCol);
+    }
+
+    // follows the parent directions back from the goal, counting the steps first (the goal's g is only an upper
+    // bound for them). a parent always has a lower g than its child, so the walk ends at the start
+    private int[] pathTo(int startCell, int goalCell) {
+        int length = 0;
+        for (int cell = goalCell; cell != startCell; cell = parent(cell)) {
+            length++;
+        }
+        int[] path = new int[length + 1];
+        int cell = goalCell;
+        for (int i = length; i >= 0; i--) {
+            path[i] = cell;
+            if (i > 0) cell = parent(cell);
+        }
+        return path;
+    }
+
+    private int parent(int cell) {
+        int dir = parentDir[cell];
+        return (cell / cols - ParentLinks.ROW_STEP[dir]) * cols + (cell % cols - ParentLinks.COL_STEP[dir]);
+    }
+
+    // binary min heap of (priority << 32 | cell)
+    private void push(long priority, int cell) {
+        long value = priority << 32 | cell;
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private long pop() {
+        long result = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return result;
+    }
+
+    // getters
+    public long getExpansions() { return expansions; }
+    public double getBound() { return bound; }
+    public int getIterations() { return iterations; }
+}
@@ -0,0 +1,94 @@
+import java.io.*;
+import java.util.*;
+
+// picks the algorithm for "Auto" from the features of the maze. the rules come from PerfCheck runs over
+// perfect, looping, open and special tile mazes (times are medians on the JDK 17 build box):
+//  - teleports only work in the tile searches (the grid engines treat them as empty), A* is the fastest of those.
+//    this comes first, even a distance field that is built already would walk over the teleports
+//  - otherwise a distance field that is already built answers any start with one walk down the field,
+//    nothing beats that
+//  - in corridor mazes the heuristic doesn't help much (the way to the goal winds away from it), the bitboard
+//    BFS does 64 cells per operation and wins by 3-10x over the tile searches. A* expands fewer tiles but each
+//    of them costs a lot more, it only draws level or comes out ahead when it expands some 20-30x fewer
+//  - that happens in open mazes, where A* goes almost straight to the goal. unless there are several ends:
+//    A* only aims for one, bidirectional BFS grows from all of them at once
+//
+// with -Dmaze.auto.log=<file> every choice is logged with the features and how the search went, so the rules can
+// be checked against real queries: one tab separated line per query (auto-selector.tsv is the usual name)
+public final class AutoSelector {
+
+    // a maze counts as open with at least this share of open tiles and less than CORRIDOR_MAZE corridor tiles.
+    // generated mazes are 50% open when perfect, 58% with half the walls knocked out and 65-75% with most of them
+    // gone; the corridor share only drops from 90% (backtracker) or 73% (Eller) to about 67%
+    static final double OPEN_MAZE = 0.62;
+    static final double CORRIDOR_MAZE = 0.70;
+
+    private static final String LOG_PROPERTY = "maze.auto.log";
+
+    // what Auto decided for one query and why
+    public static class Choice {
+        private final String algorithm;
+        private final String reason;
+        private final MazeFeatures features;
+
+        Choice(String algorithm, String reason, MazeFeatures features) {
+            this.algorithm = algorithm;
+            this.reason = reason;
+            this.features = features;
+        }
+
+        public String getAlgorithm() { return algorithm; }
+        public String getReason() { return reason; }
+        public MazeFeatures getFeatures() { return features; }
+
+        @Override
+        public String toString() {
+            return algorithm + " (" + reason + "; " + features + ")";
+        }
+    }
+
+    private AutoSelector() {}
+
+    public static Choice choose(MazeSolver solver) {
+        return choose(solver.getFeatures(), solver.hasDistanceField());
+    }
+
+    static Choice choose(MazeFeatures features, boolean hasDistanceField) {
+        if (features.getTeleports() > 0) {
+            return new Choice("A* Search", "teleports need a tile search", features);
+        }
+        if (hasDistanceField) {
+            return new Choice("Distance Field (reverse BFS)", "distance field is built already", features);
+        }
+        if (features.getOpenRatio() < OPEN_MAZE || features.getCorridorFraction() >= CORRIDOR_MAZE) {
+            return new Choice("Bitboard BFS", "corridor maze", features);
+        }
+        if (features.getEnds() > 1 && SolverEngines.find("Bidirectional BFS") != null) {
+            return new Choice("Bidirectional BFS", "open maze with " + features.getEnds() + " ends", features);
+        }
+        return new Choice("A* Search", "open maze", features);
+    }
+
+    // appends one line about a finished Auto query to the log, if there is one
+    public static synchronized void log(Choice choice, SolveResult.StopReason outcome, long expansions, long millis) {
+        String filename = System.getProperty(LOG_PROPERTY);
+        if (filename == null || filename.isEmpty()) return;
+
+        File file = new File(filename);
+        boolean header = !file.exists() || file.length() == 0;
+        MazeFeatures features = choice.getFeatures();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+            if (header) {
+                writer.println("time\trows\tcols\topen ratio\tcorridor fraction\tteleports\tcounter tiles\tends"
+                        + "\tdistance\talgorithm\treason\toutcome\texpansions\tms");
+            }
+            writer.println(String.format(Locale.ROOT, "%tFT%<tT\t%d\t%d\t%.3f\t%.3f\t%d\t%d\t%d\t%d\t%s\t%s\t%s\t%d\t%d",
+                    new Date(), features.getRows(), features.getCols(), features.getOpenRatio(),
+                    features.getCorridorFraction(), features.getTeleports(), features.getCounterTiles(),
+                    features.getEnds(), features.getStartGoalDistance(), choice.getAlgorithm(), choice.getReason(),
+                    outcome, expansions, millis));
+        } catch (IOException e) {
+            System.out.println("Could not write the Auto log " + filename + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+// solves a whole queue of maze files in one JVM
+// every job goes through the same pipeline: load the file, convert it to tiles, solve it, report the result.
+// each job runs on its own (virtual if possible) thread and the stages are bounded by semaphores:
+// only a few files are read at the same time, at most one solve per core runs at once, and a job only
+// starts loading when there is room for its maze in memory, so a slow solve holds the reading back
+// instead of piling up loaded mazes. a job that fails (bad file, invalid characters, no A or B)
+// gets its error in its own result and the rest of the batch keeps going
+public class BatchSolver {
+
+    // the outcome of one job, either a SolveResult or the error that stopped it
+    public static class JobResult {
+        private final String file;
+        private final String algorithm;
+        private final SolveResult result;
+        private final int pathLength;
+        private final String error;
+        private final long loadMillis;
+        private final long solveMillis;
+
+        private JobResult(String file, String algorithm, SolveResult result, int pathLength, String error,
+                          long loadMillis, long solveMillis) {
+            this.file = file;
+            this.algorithm = algorithm;
+            this.result = result;
+            this.pathLength = pathLength;
+            this.error = error;
+            this.loadMillis = loadMillis;
+            this.solveMillis = solveMillis;
+        }
+
+        // getters
+        public String getFile() { return file; }
+        public String getAlgorithm() { return algorithm; }
+        public SolveResult getResult() { return result; }
+        public int getPathLength() { return pathLength; }
+        public String getError() { return error; }
+        public boolean isFailed() { return error != null; }
+        public long getLoadMillis() { return loadMillis; }
+        public long getSolveMillis() { return solveMillis; }
+
+        @Override
+        public String toString() {
+            if (isFailed()) {
+                return file + ": FAILED " + error;
+            }
+            return file + ": " + result.getStopReason() + ", path length " + pathLength + ", expansions "
+                    + result.getExpansions() + ", load " + loadMillis + " ms, solve " + solveMillis + " ms";
+        }
+    }
+
+    private final String algorithm;
+    private final long timeoutMillis;
+    private final Semaphore ioPermits;
+    private final Semaphore cpuPermits;
+    private final Semaphore memoryPermits;
+
+    public BatchSolver(String algorithm, long timeoutMillis, int ioThreads, int cpuThreads, int mazesInMemory) {
+        this.algorithm = algorithm;
+        this.timeoutMillis = timeoutMillis;
+        this.ioPermits = new Semaphore(ioThreads);
+        this.cpuPermits = new Semaphore(cpuThreads);
+        this.memoryPermits = new Semaphore(mazesInMemory);
+    }
+
+    // io and memory limits that keep every core busy without reading far ahead of the solvers
+    public BatchSolver(String algorithm, long timeoutMillis) {
+        this(algorithm, timeoutMillis, 4, Runtime.getRuntime().availableProcessors(),
+                2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // runs every file through the pipeline, reporter (can be null) gets each result as soon as its job is done
+    // returns the results in the same order as the files
+    public List<JobResult> run(List<String> files, Consumer<JobResult> reporter) throws InterruptedException {
+        List<Future<JobResult>> futures = new ArrayList<>(files.size());
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("batch-solver");
+        try {
+            for (String file : files) {
+                // wait for room before even starting the job, this is what keeps the reading bounded
+                memoryPermits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        JobResult result = runJob(file);
+                        if (reporter != null) {
+                            synchronized (reporter) {
+                                reporter.accept(result);
+                            }
+                        }
+                        return result;
+                    } finally {
+                        memoryPermits.release();
+                    }
+                }));
+            }
+
+            List<JobResult> results = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    // runJob catches everything it expects, this is only for real bugs
+                    results.add(new JobResult(files.get(i), algorithm, null, 0, String.valueOf(e.getCause()), 0, 0));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // one job: load -> convert -> solve -> report
+    private JobResult runJob(String file) throws InterruptedException {
+        long loadStart = System.nanoTime();
+        Object loaded;
+        ioPermits.acquire();
+        try {
+            loaded = CompactMaze.isCompactFile(file) ? CompactMaze.read(file) : new MazeLoader(true).load(file);
+        } catch (IOException | RuntimeException e) {
+            return new JobResult(file, algorithm, null, 0, describe(e), 0, 0);
+        } finally {
+            ioPermits.release();
+        }
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        long solveStart = System.nanoTime();
+        cpuPermits.acquire();
+        try {
+            Tile[][] maze = loaded instanceof CompactMaze ? ((CompactMaze) loaded).toTiles()
+                    : Tile.convertToTiles((char[][]) loaded);
+            MazeSolver solver = new MazeSolver(maze);
+            // the search itself runs on solveAsync's big stack thread, DFS recurses once per tile on its path
+            // and a virtual thread's stack is nowhere near big enough for that
+            SearchBudget budget = new SearchBudget(timeoutMillis, 0);
+            SolveResult result;
+            try {
+                result = solver.solveAsync(algorithm, budget).get();
+            } catch (InterruptedException e) {
+                budget.cancel();
+                throw e;
+            } catch (ExecutionException e) {
+                return new JobResult(file, algorithm, null, 0, describe(e.getCause()), loadMillis, 0);
+            }
+            int pathLength = 0;
+            if (result.isFound()) {
+                Iterator<Tile> path = solver.pathIterator(solver.getReachedEnd());
+                for (; path.hasNext(); path.next()) pathLength++;
+            }
+            return new JobResult(file, algorithm, result, pathLength, null, loadMillis,
+                    (System.nanoTime() - solveStart) / 1_000_000);
+        } catch (RuntimeException e) {
+            return new JobResult(file, algorithm, null, 0, describe(e), loadMillis, 0);
+        } finally {
+            cpuPermits.release();
+        }
+    }
+
+    // the error column of a failed job
+    private static String describe(Throwable e) {
+        if (e instanceof StackOverflowError) return "The search ran out of stack";
+        return e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+
+    // adds the maze files of a directory (.txt and .mzb), or the file itself
+    private static void collectFiles(File file, List<String> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) return;
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.isDirectory() || child.getName().endsWith(".txt") || child.getName().endsWith(".mzb")) {
+                    collectFiles(child, files);
+                }
+            }
+        } else {
+            files.add(file.getPath());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java BatchSolver [-a algorithm] [-t timeout ms] [-io readers] [-cpu solvers] <maze files or directories...>");
+            return;
+        }
+
+        String algorithm = "BFS";
+        long timeout = 0;
+        int ioThreads = 4;
+        int cpuThreads = Runtime.getRuntime().availableProcessors();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-a")) {
+                algorithm = args[++i];
+            } else if (args[i].equals("-t")) {
+                timeout = Long.parseLong(args[++i]);
+            } else if (args[i].equals("-io")) {
+                ioThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-cpu")) {
+                cpuThreads = Integer.parseInt(args[++i]);
+            } else {
+                collectFiles(new File(args[i]), files);
+            }
+        }
+
+        // the solvers print every step they finish, keep only our own report on the console
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long startTime = System.currentTimeMillis();
+        List<JobResult> results;
+        try {
+            BatchSolver batch = new BatchSolver(algorithm, timeout, ioThreads, cpuThreads, 2 * cpuThreads);
+            results = batch.run(files, console::println);
+        } finally {
+            System.setOut(console);
+        }
+
+        int failed = 0;
+        int found = 0;
+        for (JobResult result : results) {
+            if (result.isFailed()) failed++;
+            else if (result.getResult().isFound()) found++;
+        }
+        System.out.println(results.size() + " mazes in " + (System.currentTimeMillis() - startTime) + " ms: "
+                + found + " solved, " + (results.size() - found - failed) + " without a path, " + failed + " failed"
+                + (VirtualThreads.isAvailable() ? " (virtual threads)" : " (platform threads)"));
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+// beam search: breadth first one layer at a time, but only the width best tiles of every layer (by the heuristic)
+// are kept for the next one. the frontier never holds more than width tiles however big the maze is, so memory
+// and the time per layer are known up front. the price is that the path isn't the shortest, and that the way to
+// the end can be dropped with the tiles that didn't make it into the beam. isPruned() tells whether that could
+// have happened: if nothing was ever dropped the search was a plain BFS and not finding the end means there is
+// no path
+//
+// a dropped tile isn't marked, so a later layer can still get to it another way. besides the frontier there is
+// one byte per cell for the direction every kept tile was reached from, to walk the path back
+// teleports are treated as empty tiles like in the other grid engines
+public class BeamSearch {
+
+    // what one unit of width costs: the tile in the current layer (an int) and up to four candidates
+    // for the next layer (a long each)
+    public static final int BYTES_PER_WIDTH = 4 + 4 * 8;
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+    private final int width;
+
+    private long expansions = 0;
+    private int layers = 0;
+    private long dropped = 0;
+
+    public BeamSearch(Tile[][] maze, int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("The beam has to be at least 1 wide.");
+        }
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        // a layer never holds more tiles than the maze has, a wider beam would only allocate arrays it can't fill
+        // (and 4 candidates per unit of width have to fit into one array)
+        this.width = (int) Math.min(Math.min(width, (long) rows * cols), Integer.MAX_VALUE / 4);
+    }
+
+    // the widest beam whose frontier fits into this many bytes
+    public static int widthFor(long bytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE / 4, bytes / BYTES_PER_WIDTH));
+    }
+
+    // searches from start until a layer gets to an end tile, estimate ranks the tiles of a layer (lower is better).
+    // every expanded tile goes to progress, which can stop the search
+    // returns the path as cell indices (row * cols + col), null if the beam ran dry or progress said to stop
+    public int[] findPath(Tile start, ToIntFunction<Tile> estimate, SolverEngine.Progress progress) {
+        expansions = 0;
+        layers = 0;
+        dropped = 0;
+
+        // reached from direction + 1, 0 for tiles that aren't in the beam (and the start)
+        byte[] parentDir = new byte[rows * cols];
+        int[] layer = new int[width];
+        // candidates for the next layer as (estimate << 32 | cell), sorted to pick the best
+        long[] candidates = new long[4 * width];
+
+        int startCell = start.getRow() * cols + start.getCol();
+        if (start.isEnd()) return new int[] {startCell};
+        layer[0] = startCell;
+        int layerSize = 1;
+        while (layerSize > 0) {
+            layers++;
+            int count = 0;
+            for (int k = 0; k < layerSize; k++) {
+                int cell = layer[k];
+                int row = cell / cols;
+                int col = cell % cols;
+                expansions++;
+                if (!progress.expanded(maze[row][col])) return null;
+
+                for (int dir = 0; dir < 4; dir++) {
+                    int newRow = row + ParentLinks.ROW_STEP[dir];
+                    int newCol = col + ParentLinks.COL_STEP[dir];
+                    if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                    Tile tile = maze[newRow][newCol];
+                    int next = newRow * cols + newCol;
+                    if (tile.isWall() || parentDir[next] != 0 || next == startCell) continue;
+                    parentDir[next] = (byte) (dir + 1);
+                    if (tile.isEnd()) return walkBack(next, startCell, parentDir);
+                    candidates[count++] = (long) estimate.applyAsInt(tile) << 32 | next;
+                }
+            }
+
+            // keep the best, the rest are forgotten so another layer can still reach them
+            if (count > width) {
+                Arrays.sort(candidates, 0, count);
+                for (int k = width; k < count; k++) {
+                    parentDir[(int) candidates[k]] = 0;
+                }
+                dropped += count - width;
+                count = width;
+            }
+            for (int k = 0; k < count; k++) {
+                layer[k] = (int) candidates[k];
+            }
+            layerSize = count;
+        }
+        return null;
+    }
+
+    private int[] walkBack(int goalCell, int startCell, byte[] parentDir) {
+        int length = 1;
+        for (int cell = goalCell; cell != startCell; cell = back(cell, parentDir[cell] - 1)) length++;
+        int[] path = new int[length];
+        int cell = goalCell;
+        for (int k = length - 1; k > 0; k--) {
+            path[k] = cell;
+            cell = back(cell, parentDir[cell] - 1);
+        }
+        path[0] = startCell;
+        return path;
+    }
+
+    // the cell we came from when we got to this one in the given direction
+    private int back(int cell, int dir) {
+        return (cell / cols - ParentLinks.ROW_STEP[dir]) * cols + cell % cols - ParentLinks.COL_STEP[dir];
+    }
+
+    // getters, all about the last search
+    public int getWidth() { return width; }
+    public long getExpansions() { return expansions; }
+    public int getLayers() { return layers; }
+    public long getDropped() { return dropped; }
+    // true if tiles had to be left out of the beam, then a search that ran dry may have missed a path
+    public boolean isPruned() { return dropped > 0; }
+}
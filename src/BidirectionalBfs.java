@@ -0,0 +1,127 @@
+import java.util.*;
+
+// breadth first search from both sides at once: one from the start and one backwards from all the ends,
+// always growing the side with the smaller frontier by one layer, until they touch. in open areas each side only
+// has to get halfway, which is a lot fewer tiles than one search going all the way
+// shortest path like BFS(), teleports are treated as empty tiles
+//
+// this is plugged in through META-INF/services/SolverEngine instead of being built into MazeSolver
+public class BidirectionalBfs implements SolverEngine {
+
+    // one direction of the search: how far every cell is from where it started (-1 not reached)
+    // and its queue, of which [head, tail) is the frontier
+    private static class Side {
+        final int[] distances;
+        final int[] queue;
+        int head = 0;
+        int tail = 0;
+
+        Side(int cells) {
+            distances = new int[cells];
+            queue = new int[cells];
+            Arrays.fill(distances, -1);
+        }
+
+        void add(int cell, int distance) {
+            distances[cell] = distance;
+            queue[tail++] = cell;
+        }
+
+        int frontier() { return tail - head; }
+    }
+
+    @Override
+    public String getName() {
+        return "Bidirectional BFS";
+    }
+
+    @Override
+    public int[] findPath(Tile[][] maze, Tile start, List<Tile> ends, Progress progress) {
+        int cols = maze[0].length;
+        Side forward = new Side(maze.length * cols);
+        Side backward = new Side(maze.length * cols);
+
+        int startCell = start.getRow() * cols + start.getCol();
+        forward.add(startCell, 0);
+        for (Tile end : ends) {
+            int cell = end.getRow() * cols + end.getCol();
+            if (cell == startCell) return new int[] {cell};
+            backward.add(cell, 0);
+        }
+
+        while (forward.frontier() > 0 && backward.frontier() > 0) {
+            boolean forwards = forward.frontier() <= backward.frontier();
+            Side side = forwards ? forward : backward;
+            Side other = forwards ? backward : forward;
+
+            // one whole layer of the smaller side. the first place the sides touch isn't always on a shortest
+            // path, so the layer is finished and the meeting closest to the other side's origin wins
+            int layerEnd = side.tail;
+            int meeting = -1;
+            while (side.head < layerEnd) {
+                int cell = side.queue[side.head++];
+                if (!progress.expanded(maze[cell / cols][cell % cols])) return null;
+                int touched = expand(maze, cell, side, other);
+                if (touched >= 0 && (meeting < 0 || other.distances[touched] < other.distances[meeting])) {
+                    meeting = touched;
+                }
+            }
+            if (meeting >= 0) return join(maze, meeting, forward.distances, backward.distances);
+        }
+        return null;
+    }
+
+    // queues the open neighbours of a cell that this side hasn't reached yet
+    // returns the neighbour closest to the other side's origin that the other side has reached, -1 if there is none
+    private static int expand(Tile[][] maze, int cell, Side side, Side other) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        int row = cell / cols;
+        int col = cell % cols;
+        int touched = -1;
+        for (int dir = 0; dir < 4; dir++) {
+            int newRow = row + ParentLinks.ROW_STEP[dir];
+            int newCol = col + ParentLinks.COL_STEP[dir];
+            if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols || maze[newRow][newCol].isWall()) continue;
+            int neighbor = newRow * cols + newCol;
+            if (side.distances[neighbor] >= 0) continue;
+            side.add(neighbor, side.distances[cell] + 1);
+            if (other.distances[neighbor] >= 0
+                    && (touched < 0 || other.distances[neighbor] < other.distances[touched])) {
+                touched = neighbor;
+            }
+        }
+        return touched;
+    }
+
+    // walks down the distances of both sides from the meeting cell: back to the start, then on to the end
+    private static int[] join(Tile[][] maze, int meeting, int[] fromStart, int[] fromEnd) {
+        int[] path = new int[fromStart[meeting] + fromEnd[meeting] + 1];
+        int position = fromStart[meeting];
+        path[position] = meeting;
+        for (int cell = meeting, k = position - 1; k >= 0; k--) {
+            cell = closerNeighbor(maze, cell, fromStart);
+            path[k] = cell;
+        }
+        for (int cell = meeting, k = position + 1; k < path.length; k++) {
+            cell = closerNeighbor(maze, cell, fromEnd);
+            path[k] = cell;
+        }
+        return path;
+    }
+
+    // a neighbour one step closer to where a side started
+    private static int closerNeighbor(Tile[][] maze, int cell, int[] distances) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        int row = cell / cols;
+        int col = cell % cols;
+        for (int dir = 0; dir < 4; dir++) {
+            int newRow = row + ParentLinks.ROW_STEP[dir];
+            int newCol = col + ParentLinks.COL_STEP[dir];
+            if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+            if (distances[newRow * cols + newCol] == distances[cell] - 1) return newRow * cols + newCol;
+        }
+        throw new IllegalStateException("Bidirectional BFS distances are broken at (" + row + ", " + col + ")");
+    }
+}
@@ -0,0 +1,256 @@
+import java.util.*;
+import java.util.function.LongPredicate;
+
+// breadth first search on bitboards: every row of the maze is a few longs with one bit per cell
+// (bit set = open), so one shift/and/or handles 64 cells at once
+// instead of a queue of tiles we keep the frontier (the cells of the current BFS layer) as a list of the words
+// that have bits in it. the next layer is the frontier shifted left, right, up and down, and'ed with the open
+// cells that weren't visited yet. only words around the frontier are touched, so a thin frontier in a huge
+// maze costs as little as a fat one in a small maze
+//
+// every layer is stored sparsely (the non empty words, sorted), walking back from the goal through the
+// layers gives a shortest path without keeping a parent per cell
+// teleports are treated as empty tiles, like the other engines that work on the plain grid
+public class BitboardBfs {
+
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final long[] open;
+
+    // scratch space for one search, indexed like open
+    private final long[] visited;
+    private final long[] next;
+
+    // all layers of the last search: layer k owns entries [layerStart[k], layerStart[k + 1])
+    // of layerWords (word index) and layerBits (the bits of the layer in that word)
+    private int[] layerStart = new int[64];
+    private int[] layerWords = new int[256];
+    private long[] layerBits = new long[256];
+    private int layerCount = 0;
+    private long expansions = 0;
+
+    // builds the open cell mask straight from the MazeLoader output
+    public BitboardBfs(char[][] maze) {
+        this(maze.length, maze[0].length);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (maze[i][j] != '#') setOpen(i, j, true);
+            }
+        }
+    }
+
+    public BitboardBfs(Tile[][] maze) {
+        this(maze.length, maze[0].length);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (!maze[i][j].isWall()) setOpen(i, j, true);
+            }
+        }
+    }
+
+    private BitboardBfs(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.open = new long[rows * wordsPerRow];
+        this.visited = new long[open.length];
+        this.next = new long[open.length];
+    }
+
+    // changes one cell of the mask, for when a tile of the maze changes
+    public void setOpen(int row, int col, boolean isOpen) {
+        int word = row * wordsPerRow + (col >>> 6);
+        if (isOpen) open[word] |= 1L << col;
+        else open[word] &= ~(1L << col);
+    }
+
+    public boolean isOpen(int row, int col) {
+        return (open[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    // shortest path between two cells as cell indices (row * cols + col), or null if there is none
+    public int[] findPath(int startRow, int startCol, int goalRow, int goalCol) {
+        return findPathToAny(startRow, startCol, new int[] {goalRow * cols + goalCol});
+    }
+
+    // shortest path from a cell to the closest of several goal cells (row * cols + col), or null if none is reachable
+    public int[] findPathToAny(int startRow, int startCol, int[] goalCells) {
+        return findPathToAny(startRow, startCol, goalCells, total -> false);
+    }
+
+    // same, but stop is asked with the expansions so far before every layer and returns true to give up
+    // (then the result is null too)
+    public int[] findPathToAny(int startRow, int startCol, int[] goalCells, LongPredicate stop) {
+        if (!isOpen(startRow, startCol)) return null;
+        int goal = search(startRow, startCol, goalCells, stop);
+        if (goal < 0) return null;
+        return backtrack(goal / cols, goal % cols);
+    }
+
+    // every cell that can be reached from a cell, as a mask with one bit per cell (row by row, wordsPerRow longs each)
+    public long[] reachableFrom(int row, int col) {
+        if (!isOpen(row, col)) return new long[open.length];
+        search(row, col, new int[0], total -> false);
+        return visited.clone();
+    }
+
+    // counts the set bits of a mask from reachableFrom
+    public static long countCells(long[] mask) {
+        long count = 0;
+        for (long word : mask) count += Long.bitCount(word);
+        return count;
+    }
+
+    // runs the layers from the start until one of the goals shows up (or until nothing is left)
+    // returns the goal cell that was reached, -1 if none or if stop said to give up
+    private int search(int startRow, int startCol, int[] goalCells, LongPredicate stop) {
+        Arrays.fill(visited, 0);
+        layerCount = 0;
+        expansions = 0;
+
+        int startWord = startRow * wordsPerRow + (startCol >>> 6);
+        visited[startWord] = 1L << startCol;
+        int[] frontier = {startWord};
+        int frontierSize = 1;
+        addLayer(frontier, frontierSize, visited);
+        int goal = reachedGoal(goalCells);
+        if (goal >= 0) return goal;
+
+        int[] touched = new int[64];
+        while (frontierSize > 0) {
+            // between two layers the scratch words are all clear again, so this is where we can leave
+            if (stop.test(expansions)) return -1;
+            int touchedCount = 0;
+            int from = layerStart[layerCount - 1];
+
+            // spread every frontier word to its neighbours in the scratch array
+            for (int k = 0; k < frontierSize; k++) {
+                int word = layerWords[from + k];
+                long bits = layerBits[from + k];
+                expansions += Long.bitCount(bits);
+                int column = word % wordsPerRow;
+                if (touched.length < touchedCount + 5) touched = Arrays.copyOf(touched, touched.length * 2);
+
+                // left and right inside the word, the bits that fall off the ends go to the next words of the row
+                touchedCount = spread(word, (bits << 1) | (bits >>> 1), touched, touchedCount);
+                if (column > 0 && (bits & 1) != 0) {
+                    touchedCount = spread(word - 1, 1L << 63, touched, touchedCount);
+                }
+                if (column < wordsPerRow - 1 && bits < 0) {
+                    touchedCount = spread(word + 1, 1L, touched, touchedCount);
+                }
+                // up and down are the same bits one row over
+                if (word >= wordsPerRow) {
+                    touchedCount = spread(word - wordsPerRow, bits, touched, touchedCount);
+                }
+                if (word + wordsPerRow < open.length) {
+                    touchedCount = spread(word + wordsPerRow, bits, touched, touchedCount);
+                }
+            }
+
+            // keep the open, unvisited cells as the new frontier (words left empty are cleared right here)
+            frontierSize = 0;
+            for (int k = 0; k < touchedCount; k++) {
+                int word = touched[k];
+                long bits = next[word] & open[word] & ~visited[word];
+                next[word] = bits;
+                if (bits != 0) {
+                    visited[word] |= bits;
+                    touched[frontierSize++] = word;
+                }
+            }
+            if (frontierSize == 0) break;
+
+            Arrays.sort(touched, 0, frontierSize);
+            addLayer(touched, frontierSize, next);
+            // and the scratch words of the frontier once the layer has them
+            for (int k = 0; k < frontierSize; k++) {
+                next[touched[k]] = 0;
+            }
+            goal = reachedGoal(goalCells);
+            if (goal >= 0) return goal;
+        }
+        return -1;
+    }
+
+    // the first goal cell that is visited already, -1 if none
+    private int reachedGoal(int[] goalCells) {
+        for (int cell : goalCells) {
+            int col = cell % cols;
+            if ((visited[(cell / cols) * wordsPerRow + (col >>> 6)] & (1L << col)) != 0) return cell;
+        }
+        return -1;
+    }
+
+    // ors bits into a scratch word and remembers the word the first time it gets something
+    private int spread(int word, long bits, int[] touched, int touchedCount) {
+        if (bits == 0) return touchedCount;
+        if (next[word] == 0) touched[touchedCount++] = word;
+        next[word] |= bits;
+        return touchedCount;
+    }
+
+    // stores a layer: the given word indices (sorted) and their bits taken from source
+    private void addLayer(int[] words, int count, long[] source) {
+        if (layerCount + 2 > layerStart.length) layerStart = Arrays.copyOf(layerStart, layerStart.length * 2);
+        int start = layerStart[layerCount];
+        if (start + count > layerWords.length) {
+            int size = Math.max(layerWords.length * 2, start + count);
+            layerWords = Arrays.copyOf(layerWords, size);
+            layerBits = Arrays.copyOf(layerBits, size);
+        }
+        for (int k = 0; k < count; k++) {
+            layerWords[start + k] = words[k];
+            layerBits[start + k] = source[words[k]];
+        }
+        layerCount++;
+        layerStart[layerCount] = start + count;
+    }
+
+    // true if a cell is in a stored layer (binary search over the layer's sorted words)
+    private boolean inLayer(int layer, int row, int col) {
+        int word = row * wordsPerRow + (col >>> 6);
+        int low = layerStart[layer];
+        int high = layerStart[layer + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (layerWords[middle] < word) low = middle + 1;
+            else if (layerWords[middle] > word) high = middle - 1;
+            else return (layerBits[middle] & (1L << col)) != 0;
+        }
+        return false;
+    }
+
+    // walks from the goal (in the last layer) back to the start, one layer per step
+    private int[] backtrack(int goalRow, int goalCol) {
+        int[] path = new int[layerCount];
+        int row = goalRow;
+        int col = goalCol;
+        path[layerCount - 1] = row * cols + col;
+        for (int layer = layerCount - 2; layer >= 0; layer--) {
+            boolean moved = false;
+            for (int dir = 0; dir < 4 && !moved; dir++) {
+                int newRow = row - ParentLinks.ROW_STEP[dir];
+                int newCol = col - ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                if (inLayer(layer, newRow, newCol)) {
+                    row = newRow;
+                    col = newCol;
+                    moved = true;
+                }
+            }
+            if (!moved) {
+                throw new IllegalStateException("BFS layers are broken at (" + row + ", " + col + ")");
+            }
+            path[layer] = row * cols + col;
+        }
+        return path;
+    }
+
+    // getters, layers and expansions are of the last search
+    public int getLayerCount() { return layerCount; }
+    public long getExpansions() { return expansions; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+}
@@ -0,0 +1,268 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
+
+// splits one long query into pieces that can be solved at the same time
+// a chokepoint is a tile every path from the start to the goal has to go through: an articulation point of the
+// grid graph (neighbours as in Tile.getValidNeighbors) that sits between the two. one Tarjan style depth first
+// search from the start finds all of them, and between two chokepoints the shortest path can be searched on its
+// own: no shortest path leaves the piece of maze between them. so the pieces are searched in parallel and the
+// paths joined, which gives the same path length as BFS() (teleports are treated as empty tiles)
+//
+// the search numbers every tile in depth first order, so the tiles below a tile in the search tree are the
+// numbers from its own to the last one handed out in its subtree. each piece is such a range minus the range
+// of the next chokepoint, checking whether a tile belongs to a piece is two comparisons, and the pieces don't
+// overlap so they can all write their parent links into one shared array
+public class Chokepoints {
+
+    // below this many tiles per piece the pieces are merged, the thread pool costs more than they save
+    private static final int MIN_PIECE = 4096;
+    // the budget is asked every this many expansions of a piece, and every this many tiles of the analysis
+    private static final int CHECK_EVERY = 4096;
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+
+    // results of the last analysis
+    private int[] discovery;  // depth first number, 1 based, 0 for tiles the search didn't reach
+    private int[] low;        // lowest number reachable from the subtree with one back edge
+    private int[] last;       // last number handed out in the subtree
+    private byte[] treeDir;   // direction the search came into the tile from its parent + 1, 0 for the start
+    private int analyzedStart = -1;
+    private int articulationPoints = 0;
+    private int blocks = 0;
+
+    private int[] chokepoints = new int[0];
+    private int pieces = 0;
+    private long expansions = 0;
+
+    public Chokepoints(Tile[][] maze) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+    }
+
+    // the shortest path from the start to the first goal (row * cols + col) that can be reached, as cell indices,
+    // or null if none can be reached or stop said so. stop gets the expansions so far and is asked from several
+    // threads, one at a time
+    public int[] findPath(int startRow, int startCol, int[] goalCells, LongPredicate stop) {
+        int start = startRow * cols + startCol;
+        // the depth first search counts as one expansion per tile, when it has to run
+        expansions = analyze(start, stop);
+        chokepoints = new int[0];
+        pieces = 0;
+        if (discovery == null) return null; // stopped half way through
+
+        int goal = -1;
+        for (int cell : goalCells) {
+            if (discovery[cell] != 0) {
+                goal = cell;
+                break;
+            }
+        }
+        if (goal < 0) return null;
+        if (goal == start) return new int[] {start};
+
+        // walk up the search tree from the goal: a tile whose child on the way has no back edge above the tile
+        // cuts the child's subtree (with the goal in it) off from the start
+        List<Integer> found = new ArrayList<>();
+        List<Integer> childOnPath = new ArrayList<>();
+        int child = goal;
+        for (int cell = parent(goal); cell >= 0; child = cell, cell = parent(cell)) {
+            if (cell != start && low[child] >= discovery[cell]) {
+                found.add(cell);
+                childOnPath.add(child);
+            }
+        }
+        Collections.reverse(found);
+        Collections.reverse(childOnPath);
+        chokepoints = found.stream().mapToInt(Integer::intValue).toArray();
+
+        // pieces: from the start (or a kept chokepoint) to the next kept chokepoint (or the goal)
+        // chokepoints are kept only where the piece before them gets big enough to be worth a task
+        List<Integer> sources = new ArrayList<>();
+        List<Integer> lows = new ArrayList<>();
+        List<Integer> highs = new ArrayList<>();
+        sources.add(start);
+        lows.add(discovery[start]);
+        highs.add(last[start]);
+        int pieceSize = Math.max(MIN_PIECE, (last[start] - discovery[start] + 1)
+                / (4 * Runtime.getRuntime().availableProcessors()));
+        for (int i = 0; i < chokepoints.length; i++) {
+            int below = childOnPath.get(i);
+            // the tiles the current piece would keep if it ended here
+            int sizeBefore = (highs.get(highs.size() - 1) - lows.get(lows.size() - 1) + 1)
+                    - (last[below] - discovery[below] + 1);
+            if (sizeBefore < pieceSize) continue;
+            sources.add(chokepoints[i]);
+            lows.add(discovery[below]);
+            highs.add(last[below]);
+        }
+        pieces = sources.size();
+
+        byte[] cameFrom = new byte[rows * cols];
+        long[] pieceExpansions = new long[pieces];
+        Object lock = new Object();
+        boolean[] stopped = {false};
+        int finalGoal = goal;
+        IntStream.range(0, pieces).parallel().forEach(piece -> {
+            int target = piece + 1 < pieces ? sources.get(piece + 1) : finalGoal;
+            int excludedLow = piece + 1 < pieces ? lows.get(piece + 1) : Integer.MAX_VALUE;
+            int excludedHigh = piece + 1 < pieces ? highs.get(piece + 1) : Integer.MIN_VALUE;
+            searchPiece(sources.get(piece), target, lows.get(piece), highs.get(piece), excludedLow, excludedHigh,
+                    cameFrom, pieceExpansions, piece, () -> {
+                        synchronized (lock) {
+                            long total = expansions;
+                            for (long count : pieceExpansions) total += count;
+                            if (stop.test(total)) stopped[0] = true;
+                            return stopped[0];
+                        }
+                    });
+        });
+        for (long count : pieceExpansions) expansions += count;
+        if (stopped[0]) return null;
+
+        // every piece walks back from its target to its source, the pieces are laid end to end
+        List<Integer> path = new ArrayList<>();
+        path.add(start);
+        for (int piece = 0; piece < pieces; piece++) {
+            int source = sources.get(piece);
+            int target = piece + 1 < pieces ? sources.get(piece + 1) : goal;
+            int from = path.size();
+            for (int cell = target; cell != source; cell = step(cell, cameFrom[cell] - 1, -1)) {
+                path.add(cell);
+            }
+            Collections.reverse(path.subList(from, path.size()));
+        }
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // breadth first search from source to target through the tiles numbered [low, high] minus
+    // [excludedLow, excludedHigh]. the source is a chokepoint numbered just outside of its piece, or the start
+    private void searchPiece(int source, int target, int low, int high, int excludedLow, int excludedHigh,
+                             byte[] cameFrom, long[] pieceExpansions, int piece, BooleanSupplier stop) {
+        int[] queue = new int[high - low + 2];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell == target) return;
+            if (++pieceExpansions[piece] % CHECK_EVERY == 0 && stop.getAsBoolean()) return;
+
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int newRow = row + ParentLinks.ROW_STEP[dir];
+                int newCol = col + ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                int neighbor = newRow * cols + newCol;
+                int number = discovery[neighbor];
+                // walls were never numbered, so this also keeps us off them
+                if (number < low || number > high || (number >= excludedLow && number <= excludedHigh)) continue;
+                if (cameFrom[neighbor] != 0 || neighbor == source) continue;
+                cameFrom[neighbor] = (byte) (dir + 1);
+                queue[tail++] = neighbor;
+            }
+        }
+    }
+
+    // iterative Tarjan: depth first numbers, low links, subtree ranges, articulation points and blocks
+    // (biconnected components) of everything the start can reach. a recursive version would need a stack frame
+    // per tile of the deepest branch, millions in a perfect maze
+    // the analysis only depends on the start, it is kept for the next query. returns the tiles it numbered,
+    // if stop says so half way through the analysis is thrown away (discovery is null afterwards)
+    private int analyze(int start, LongPredicate stop) {
+        if (analyzedStart == start && discovery != null) return 0;
+        int cells = rows * cols;
+        discovery = new int[cells];
+        low = new int[cells];
+        last = new int[cells];
+        treeDir = new byte[cells];
+        articulationPoints = 0;
+        blocks = 0;
+
+        int[] stack = new int[1024];
+        byte[] nextDir = new byte[1024];
+        boolean[] isCut = new boolean[cells];
+        int depth = 0;
+        int counter = 0;
+        int rootChildren = 0;
+
+        stack[depth] = start;
+        nextDir[depth++] = 0;
+        discovery[start] = low[start] = ++counter;
+        while (depth > 0) {
+            int cell = stack[depth - 1];
+            int dir = nextDir[depth - 1];
+            if (dir < 4) {
+                nextDir[depth - 1]++;
+                int row = cell / cols + ParentLinks.ROW_STEP[dir];
+                int col = cell % cols + ParentLinks.COL_STEP[dir];
+                if (row < 0 || row >= rows || col < 0 || col >= cols || maze[row][col].isWall()) continue;
+                int neighbor = row * cols + col;
+                if (discovery[neighbor] == 0) {
+                    treeDir[neighbor] = (byte) (dir + 1);
+                    discovery[neighbor] = low[neighbor] = ++counter;
+                    if (counter % CHECK_EVERY == 0 && stop.test(counter)) {
+                        invalidate();
+                        return counter;
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                        nextDir = Arrays.copyOf(nextDir, depth * 2);
+                    }
+                    stack[depth] = neighbor;
+                    nextDir[depth++] = 0;
+                } else if (neighbor != parent(cell)) {
+                    low[cell] = Math.min(low[cell], discovery[neighbor]);
+                }
+                continue;
+            }
+
+            // all neighbours done, hand the low link up to the parent
+            depth--;
+            last[cell] = counter;
+            int parent = parent(cell);
+            if (parent < 0) continue;
+            low[parent] = Math.min(low[parent], low[cell]);
+            if (low[cell] >= discovery[parent]) {
+                blocks++;
+                if (parent == start) {
+                    rootChildren++;
+                } else if (!isCut[parent]) {
+                    isCut[parent] = true;
+                    articulationPoints++;
+                }
+            }
+        }
+        if (rootChildren > 1) articulationPoints++;
+        analyzedStart = start;
+        return counter;
+    }
+
+    // forgets the analysis, for when a tile of the maze changes
+    public void invalidate() {
+        discovery = null;
+        analyzedStart = -1;
+    }
+
+    private int parent(int cell) {
+        int dir = treeDir[cell] - 1;
+        return dir < 0 ? -1 : step(cell, dir, -1);
+    }
+
+    // the cell one step away in a direction (sign 1) or against it (sign -1)
+    private int step(int cell, int dir, int sign) {
+        return (cell / cols + sign * ParentLinks.ROW_STEP[dir]) * cols + cell % cols + sign * ParentLinks.COL_STEP[dir];
+    }
+
+    // getters, all about the last query
+    public int[] getChokepoints() { return chokepoints.clone(); }
+    public int getPieces() { return pieces; }
+    public long getExpansions() { return expansions; }
+    public int getArticulationPoints() { return articulationPoints; }
+    public int getBlocks() { return blocks; }
+}
@@ -0,0 +1,348 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// a compact binary version of the maze files
+// the text format costs a byte per cell on disk (and 2 bytes per cell as a char in memory),
+// here every cell is a single bit (1 = wall) and the few special tiles are listed in the header
+//
+// file layout (big endian):
+//   int   magic "MZB1"
+//   byte  flags (bit 0 = the wall bitmap is run length encoded, bit 1 = the maze has more than one B,
+//         like the ones MazeLoader(true) reads)
+//   int   rows, int cols
+//   int   number of special tiles, then for each one: int row, int col, byte tile character
+//   then either the raw bitmap (ceil(rows * cols / 64) longs, row major)
+//   or the run lengths as varints, alternating open / wall runs and starting with an open run
+public class CompactMaze {
+
+    private static final int MAGIC = 0x4D5A4231; // "MZB1"
+    private static final int FLAG_RLE = 1;
+    private static final int FLAG_MULTIPLE_ENDS = 2;
+    // the raw bitmap is copied to and from the file this many longs at a time, a single buffer for all of it
+    // would be as big as the bitmap (and its size in bytes doesn't fit an int for the biggest mazes)
+    private static final int BLOCK = 1 << 16;
+
+    private final int rows;
+    private final int cols;
+    // one bit per cell, set if the cell is a wall
+    private final long[] walls;
+    // special tiles as {row, col, character}
+    private final List<int[]> specials;
+    // more than one end tile, the file says so and reading it checks for at least one B instead of exactly one
+    private final boolean multipleEnds;
+
+    private CompactMaze(int rows, int cols, long[] walls, List<int[]> specials, boolean multipleEnds) {
+        this.rows = rows;
+        this.cols = cols;
+        this.walls = walls;
+        this.specials = specials;
+        this.multipleEnds = multipleEnds;
+    }
+
+    // getters
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public boolean hasMultipleEnds() { return multipleEnds; }
+
+    public boolean isWall(int row, int col) {
+        long index = (long) row * cols + col;
+        return (walls[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    // builds the compact form from the output of MazeLoader.load
+    public static CompactMaze fromCharMaze(char[][] charMaze) {
+        int rows = charMaze.length;
+        int cols = charMaze[0].length;
+        long[] walls = new long[wordCount(rows, cols)];
+        List<int[]> specials = new ArrayList<>();
+        int endCount = 0;
+
+        long index = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++, index++) {
+                char ch = charMaze[i][j];
+                if (ch == '#') {
+                    walls[(int) (index >>> 6)] |= 1L << index;
+                } else if (ch != ' ') {
+                    specials.add(new int[] {i, j, ch});
+                    if (ch == 'B') endCount++;
+                }
+            }
+        }
+        return new CompactMaze(rows, cols, walls, specials, endCount > 1);
+    }
+
+    // turns it back into the same char grid MazeLoader.load would give us
+    public char[][] toCharMaze() {
+        char[][] charMaze = new char[rows][cols];
+        long index = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++, index++) {
+                charMaze[i][j] = (walls[(int) (index >>> 6)] & (1L << index)) != 0 ? '#' : ' ';
+            }
+        }
+        for (int[] special : specials) {
+            charMaze[special[0]][special[1]] = (char) special[2];
+        }
+        return charMaze;
+    }
+
+    // builds the solver grid straight from the bitmap without going through a char grid
+    public Tile[][] toTiles() {
+        MazeEvents.Convert event = new MazeEvents.Convert();
+        event.begin();
+        Tile[][] tileMaze = new Tile[rows][cols];
+        long index = 0;
+        for (int i = 0; i < rows; i++) {
+            Tile[] row = tileMaze[i];
+            for (int j = 0; j < cols; j++, index++) {
+                boolean wall = (walls[(int) (index >>> 6)] & (1L << index)) != 0;
+                row[j] = new Tile(i, j, wall ? TileType.WALL : TileType.EMPTY);
+            }
+        }
+        for (int[] special : specials) {
+            tileMaze[special[0]][special[1]] = new Tile(special[0], special[1], typeOf((char) special[2]));
+        }
+        event.source = "compact";
+        event.rows = rows;
+        event.cols = cols;
+        event.commit();
+        return tileMaze;
+    }
+
+    private static TileType typeOf(char ch) {
+        switch (ch) {
+            case 'A': return TileType.START;
+            case 'B': return TileType.END;
+            case 'T': return TileType.TELEPORT;
+            case 'C': return TileType.COUNTER_UP;
+            case 'c': return TileType.COUNTER_DOWN;
+            default: throw new IllegalArgumentException("Unknown tile character: " + ch);
+        }
+    }
+
+    // writes the maze to a binary file, rle is worth it for mazes with big open areas
+    public void write(String filename, boolean rle) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte((rle ? FLAG_RLE : 0) | (multipleEnds ? FLAG_MULTIPLE_ENDS : 0));
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeInt(specials.size());
+            for (int[] special : specials) {
+                out.writeInt(special[0]);
+                out.writeInt(special[1]);
+                out.writeByte(special[2]);
+            }
+
+            if (rle) {
+                writeRuns(out);
+            } else {
+                ByteBuffer block = ByteBuffer.allocate(BLOCK * 8);
+                for (int from = 0; from < walls.length; from += BLOCK) {
+                    int count = Math.min(BLOCK, walls.length - from);
+                    block.clear();
+                    block.asLongBuffer().put(walls, from, count);
+                    out.write(block.array(), 0, count * 8);
+                }
+            }
+        }
+    }
+
+    // alternating open / wall runs, the first run is open (and may be 0 long)
+    private void writeRuns(DataOutputStream out) throws IOException {
+        long total = (long) rows * cols;
+        long index = 0;
+        boolean wall = false;
+        while (index < total) {
+            long start = index;
+            while (index < total && ((walls[(int) (index >>> 6)] & (1L << index)) != 0) == wall) {
+                index++;
+            }
+            writeVarLong(out, index - start);
+            wall = !wall;
+        }
+    }
+
+    // reads a binary maze file, the bitmap is pulled in with a single bulk read
+    public static CompactMaze read(String filename) throws IOException {
+        return read(new FileInputStream(filename), filename);
+    }
+
+    // same as read(filename) for a maze that doesn't come from a file (an upload for example), the name only
+    // shows up in errors and the Load event. the stream is closed when we are done
+    public static CompactMaze read(InputStream source, String name) throws IOException {
+        MazeEvents.Load event = new MazeEvents.Load();
+        event.begin();
+        try {
+            CompactMaze compact = readStream(source, name);
+            event.rows = compact.rows;
+            event.cols = compact.cols;
+            event.succeeded = true;
+            return compact;
+        } finally {
+            event.file = name;
+            event.format = "compact";
+            event.commit();
+        }
+    }
+
+    private static CompactMaze readStream(InputStream source, String name) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(source, 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a compact maze file: " + name);
+            }
+            int flags = in.readByte();
+            int rows = in.readInt();
+            int cols = in.readInt();
+            if (rows <= 0 || cols <= 0) {
+                throw new IllegalArgumentException("Invalid maze size: " + rows + "x" + cols);
+            }
+
+            int specialCount = in.readInt();
+            if (specialCount < 0 || specialCount > (long) rows * cols) {
+                throw new IllegalArgumentException("Invalid number of special tiles: " + specialCount);
+            }
+            // the count comes from the file, the list only grows with tiles that are really there
+            List<int[]> specials = new ArrayList<>(Math.min(specialCount, 1024));
+            int startCount = 0;
+            int endCount = 0;
+            for (int i = 0; i < specialCount; i++) {
+                int row = in.readInt();
+                int col = in.readInt();
+                char ch = (char) in.readByte();
+                if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                    throw new IllegalArgumentException("Special tile out of bounds at (" + row + ", " + col + ")");
+                }
+                typeOf(ch); // validates the character
+                if (ch == 'A') startCount++;
+                if (ch == 'B') endCount++;
+                specials.add(new int[] {row, col, ch});
+            }
+
+            // same tile count checks as MazeLoader
+            boolean multipleEnds = (flags & FLAG_MULTIPLE_ENDS) != 0;
+            if (startCount != 1) throw new IllegalArgumentException("Maze must have exactly one start tile (A).");
+            if (multipleEnds) {
+                if (endCount < 1) throw new IllegalArgumentException("Maze must have at least one end tile (B).");
+            } else if (endCount != 1) throw new IllegalArgumentException("Maze must have exactly one end tile (B).");
+
+            long[] walls = new long[wordCount(rows, cols)];
+            if ((flags & FLAG_RLE) != 0) {
+                readRuns(in, walls, (long) rows * cols);
+            } else {
+                ByteBuffer block = ByteBuffer.allocate(BLOCK * 8);
+                for (int from = 0; from < walls.length; from += BLOCK) {
+                    int count = Math.min(BLOCK, walls.length - from);
+                    in.readFully(block.array(), 0, count * 8);
+                    block.clear();
+                    block.asLongBuffer().get(walls, from, count);
+                }
+            }
+            return new CompactMaze(rows, cols, walls, specials, multipleEnds);
+        }
+    }
+
+    private static void readRuns(DataInputStream in, long[] walls, long total) throws IOException {
+        long index = 0;
+        boolean wall = false;
+        while (index < total) {
+            long length = readVarLong(in);
+            if (index + length > total) {
+                throw new IllegalArgumentException("Run length data is longer than the maze.");
+            }
+            if (wall) setRange(walls, index, index + length);
+            index += length;
+            wall = !wall;
+        }
+    }
+
+    // sets the bits in [from, to), whole words at a time where possible
+    private static void setRange(long[] words, long from, long to) {
+        while (from < to) {
+            int word = (int) (from >>> 6);
+            int bit = (int) (from & 63);
+            int count = (int) Math.min(64 - bit, to - from);
+            long mask = count == 64 ? -1L : ((1L << count) - 1) << bit;
+            words[word] |= mask;
+            from += count;
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int wordCount(int rows, int cols) {
+        long words = ((long) rows * cols + 63) >>> 6;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Maze is too big: " + rows + "x" + cols);
+        }
+        return (int) words;
+    }
+
+    // true if the data starts with the compact maze magic number
+    public static boolean isCompact(byte[] data) {
+        return data.length >= 4 && ByteBuffer.wrap(data, 0, 4).getInt() == MAGIC;
+    }
+
+    // the number of cells the header of compact data says the maze has, without reading the rest
+    // (so a caller can turn away a maze that is too big before anything is allocated for it)
+    public static long declaredCells(byte[] data) {
+        if (!isCompact(data) || data.length < 13) {
+            throw new IllegalArgumentException("Not a compact maze.");
+        }
+        ByteBuffer header = ByteBuffer.wrap(data, 5, 8);
+        return (long) header.getInt() * header.getInt();
+    }
+
+    // true if the file starts with the compact maze magic number
+    public static boolean isCompactFile(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // converter between the two formats
+    // usage: java CompactMaze <input.txt> <output.mzb> [--rle]   or   java CompactMaze <input.mzb> <output.txt>
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java CompactMaze <input.txt> <output.mzb> [--rle]");
+            System.out.println("       java CompactMaze <input.mzb> <output.txt>");
+            return;
+        }
+
+        if (isCompactFile(args[0])) {
+            char[][] charMaze = read(args[0]).toCharMaze();
+            try (Writer writer = new BufferedWriter(new FileWriter(args[1]), 1 << 16)) {
+                for (char[] row : charMaze) {
+                    writer.write(row);
+                    writer.write('\n');
+                }
+            }
+        } else {
+            boolean rle = args.length > 2 && args[2].equals("--rle");
+            fromCharMaze(new MazeLoader(true).load(args[0])).write(args[1], rle);
+        }
+        System.out.println("Wrote " + args[1] + " (" + new File(args[1]).length() + " bytes)");
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+// labels every open tile with the id of the connected region it belongs to (walls get -1)
+// two tiles with different labels can never reach each other by walking, so a search between them
+// can be rejected right away instead of exploring the whole region first
+//
+// teleports make this a bit less simple: stepping on a T can drop us on any open tile of the maze,
+// so a region that contains a teleport can (eventually) reach everything
+public class ConnectedComponents {
+
+    // stop is asked every this many labeled tiles
+    private static final int CHECK_EVERY = 4096;
+
+    private final int cols;
+    private final int[] labels;
+    private final BitSet hasTeleport = new BitSet();
+    private int count = 0;
+
+    public ConnectedComponents(Tile[][] maze) {
+        this.cols = maze[0].length;
+        this.labels = new int[maze.length * cols];
+        fill(maze, () -> false);
+    }
+
+    private ConnectedComponents(int cols, int[] labels) {
+        this.cols = cols;
+        this.labels = labels;
+    }
+
+    // labels the maze, or returns null if stop says so half way through
+    public static ConnectedComponents label(Tile[][] maze, BooleanSupplier stop) {
+        ConnectedComponents components = new ConnectedComponents(maze[0].length, new int[maze.length * maze[0].length]);
+        return components.fill(maze, stop) ? components : null;
+    }
+
+    private boolean fill(Tile[][] maze, BooleanSupplier stop) {
+        int rows = maze.length;
+        Arrays.fill(labels, -1);
+        long labeled = 0;
+
+        // flood fill every unlabeled open tile with an explicit queue
+        int[] queue = new int[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (maze[i][j].isWall() || labels[i * cols + j] >= 0) continue;
+
+                int label = count++;
+                int head = 0;
+                int tail = 0;
+                labels[i * cols + j] = label;
+                queue[tail++] = i * cols + j;
+
+                while (head < tail) {
+                    if (++labeled % CHECK_EVERY == 0 && stop.getAsBoolean()) return false;
+                    int cell = queue[head++];
+                    int row = cell / cols;
+                    int col = cell % cols;
+                    if (maze[row][col].isTeleport()) hasTeleport.set(label);
+
+                    for (int dir = 0; dir < 4; dir++) {
+                        int newRow = row + ParentLinks.ROW_STEP[dir];
+                        int newCol = col + ParentLinks.COL_STEP[dir];
+                        if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                        int next = newRow * cols + newCol;
+                        if (labels[next] >= 0 || maze[newRow][newCol].isWall()) continue;
+                        labels[next] = label;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // the region id of a tile, -1 for walls
+    public int labelOf(Tile tile) {
+        return labels[tile.getRow() * cols + tile.getCol()];
+    }
+
+    // false only if there is no way at all to get from one tile to the other
+    public boolean canReach(Tile from, Tile to) {
+        int fromLabel = labelOf(from);
+        int toLabel = labelOf(to);
+        if (fromLabel < 0 || toLabel < 0) return false;
+        return fromLabel == toLabel || hasTeleport.get(fromLabel);
+    }
+
+    // number of separate regions in the maze
+    public int getCount() { return count; }
+}
@@ -0,0 +1,206 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.zip.CRC32;
+
+// the walking distance from every tile to the nearest end tile (B), found with one breadth first search
+// that starts from all the ends at once and runs backwards. once it is built, a path from any start is just
+// "step to a neighbour that is one closer" until the distance is 0, which costs the length of the path
+// instead of a whole new search. useful when the goal stays put and the starts change
+//
+// teleports are treated as empty tiles, a random jump has no fixed distance
+// the field can be saved next to the maze, the file carries a checksum of the maze so a stale field is rejected
+//
+// file format: magic "MZD1", rows, cols, maze checksum, then every distance as an int (-1 for unreachable)
+public class DistanceField {
+
+    private static final int MAGIC = 0x4D5A4431; // "MZD1"
+    // distances are copied to and from the file in blocks of this many, one int at a time is far too slow
+    private static final int BLOCK = 1 << 16;
+    // stop is asked every this many tiles of the reverse search
+    private static final int CHECK_EVERY = 4096;
+
+    private final int rows;
+    private final int cols;
+    private final int[] distances;
+    private final long checksum;
+    // tiles the reverse search went through, 0 for a field read from a file
+    private long searchedTiles = 0;
+
+    public DistanceField(Tile[][] maze) {
+        this(maze.length, maze[0].length, new int[maze.length * maze[0].length], checksumOf(maze));
+        searchedTiles = search(maze, distances, total -> false);
+    }
+
+    // builds the field, or returns null if stop (asked with the tiles searched so far) says so half way through
+    public static DistanceField build(Tile[][] maze, LongPredicate stop) {
+        int[] distances = new int[maze.length * maze[0].length];
+        long searched = search(maze, distances, stop);
+        if (searched < 0) return null;
+        DistanceField field = new DistanceField(maze.length, maze[0].length, distances, checksumOf(maze));
+        field.searchedTiles = searched;
+        return field;
+    }
+
+    // the reverse BFS, returns the tiles it went through or -1 if stop said so
+    private static long search(Tile[][] maze, int[] distances, LongPredicate stop) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        Arrays.fill(distances, -1);
+
+        // every end tile starts at distance 0, so each tile ends up with the distance to its closest end
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (maze[i][j].isEnd()) {
+                    distances[i * cols + j] = 0;
+                    queue[tail++] = i * cols + j;
+                }
+            }
+        }
+
+        while (head < tail) {
+            if (head % CHECK_EVERY == 0 && stop.test(head)) return -1;
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            int next = distances[cell] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int newRow = row + ParentLinks.ROW_STEP[dir];
+                int newCol = col + ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                int neighbor = newRow * cols + newCol;
+                if (distances[neighbor] >= 0 || maze[newRow][newCol].isWall()) continue;
+                distances[neighbor] = next;
+                queue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    private DistanceField(int rows, int cols, int[] distances, long checksum) {
+        this.rows = rows;
+        this.cols = cols;
+        this.distances = distances;
+        this.checksum = checksum;
+    }
+
+    // steps to the closest end from a tile, -1 if no end can be reached (or it is a wall)
+    public int distanceAt(int row, int col) {
+        return distances[row * cols + col];
+    }
+
+    // the shortest path from a tile to its closest end as cell indices (row * cols + col), or null if there is none
+    // at every step we take the first neighbour (down, up, right, left) that is exactly one closer
+    public int[] pathFrom(int row, int col) {
+        int cell = row * cols + col;
+        if (distances[cell] < 0) return null;
+
+        int[] path = new int[distances[cell] + 1];
+        path[0] = cell;
+        for (int k = 1; k < path.length; k++) {
+            int r = cell / cols;
+            int c = cell % cols;
+            int wanted = distances[cell] - 1;
+            int next = -1;
+            for (int dir = 0; dir < 4 && next < 0; dir++) {
+                int newRow = r + ParentLinks.ROW_STEP[dir];
+                int newCol = c + ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) continue;
+                if (distances[newRow * cols + newCol] == wanted) next = newRow * cols + newCol;
+            }
+            if (next < 0) {
+                throw new IllegalStateException("Distance field is broken at (" + r + ", " + c + ")");
+            }
+            path[k] = next;
+            cell = next;
+        }
+        return path;
+    }
+
+    // true if this field was computed for a maze with exactly these walls and ends
+    public boolean matches(Tile[][] maze) {
+        return maze.length == rows && maze[0].length == cols && checksumOf(maze) == checksum;
+    }
+
+    public void write(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeLong(checksum);
+            ByteBuffer block = ByteBuffer.allocate(BLOCK * 4);
+            for (int from = 0; from < distances.length; from += BLOCK) {
+                int count = Math.min(BLOCK, distances.length - from);
+                block.clear();
+                block.asIntBuffer().put(distances, from, count);
+                out.write(block.array(), 0, count * 4);
+            }
+        }
+    }
+
+    // reads a saved field, it has to belong to the given maze
+    public static DistanceField read(String filename, Tile[][] maze) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a distance field file: " + filename);
+            }
+            int rows = in.readInt();
+            int cols = in.readInt();
+            long checksum = in.readLong();
+            if (rows != maze.length || cols != maze[0].length || checksum != checksumOf(maze)) {
+                throw new IllegalArgumentException("Distance field " + filename + " was computed for a different maze.");
+            }
+            int[] distances = new int[rows * cols];
+            ByteBuffer block = ByteBuffer.allocate(BLOCK * 4);
+            for (int from = 0; from < distances.length; from += BLOCK) {
+                int count = Math.min(BLOCK, distances.length - from);
+                in.readFully(block.array(), 0, count * 4);
+                block.clear();
+                block.asIntBuffer().get(distances, from, count);
+            }
+            return new DistanceField(rows, cols, distances, checksum);
+        }
+    }
+
+    // the file name a field is saved under next to its maze file
+    public static String fileFor(String mazeFilename) {
+        return mazeFilename + ".dist";
+    }
+
+    // checksum over what the distances depend on: the size, the walls and where the ends are
+    private static long checksumOf(Tile[][] maze) {
+        CRC32 crc = new CRC32();
+        byte[] row = new byte[maze[0].length];
+        crc.update(maze.length);
+        crc.update(maze[0].length);
+        for (Tile[] tiles : maze) {
+            for (int j = 0; j < tiles.length; j++) {
+                row[j] = (byte) (tiles[j].isWall() ? 1 : tiles[j].isEnd() ? 2 : 0);
+            }
+            crc.update(row);
+        }
+        return crc.getValue();
+    }
+
+    public long getSearchedTiles() { return searchedTiles; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+
+    // precomputes the field of a maze and saves it next to the maze file, the UI picks it up from there
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java DistanceField <maze file>");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Tile[][] maze = CompactMaze.isCompactFile(args[0]) ? CompactMaze.read(args[0]).toTiles()
+                : Tile.convertToTiles(new MazeLoader(true).load(args[0]));
+        DistanceField field = new DistanceField(maze);
+        field.write(fileFor(args[0]));
+        System.out.println("Wrote " + fileFor(args[0]) + " in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+}
@@ -0,0 +1,506 @@
+import java.util.*;
+import java.util.function.LongPredicate;
+
+// hierarchical pathfinding (HPA*) over a Tile grid
+// the grid is cut into square clusters, where two clusters touch we pick a few entrance cells on each side of
+// the border, and inside each cluster we precompute the distances between its entrances once.
+// a query then only has to search the small graph of entrances and fill in the cell path of the clusters it used,
+// instead of exploring millions of cells. paths are close to optimal but not always exactly shortest
+//
+// the abstraction is built lazily and kept between queries, changing a tile only rebuilds the clusters around it
+// teleports are treated as empty tiles, a random jump has no fixed place in a precomputed graph
+public class HierarchicalPathfinder {
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+    private final int clusterSize;
+    private final int clustersDown;
+    private final int clustersAcross;
+
+    // every cluster owns a fixed block of abstract node ids (a cluster can't have more than 4 * clusterSize entrances)
+    // so node id = cluster * nodesPerCluster + position of the entrance in the cluster
+    private final int nodesPerCluster;
+
+    // entrance pairs {cell on this side, cell on the other side} for every border,
+    // border id = cluster * 2 for the right border and cluster * 2 + 1 for the bottom border
+    private final int[][][] borders;
+    // entrance cells of every cluster, the distances between them (n x n, -1 if unreachable inside the cluster)
+    // and for every entrance the node ids across the border it connects to
+    private final int[][] clusterNodes;
+    private final int[][] intraDistances;
+    private final int[][][] partnerIds;
+
+    private final Set<Integer> dirtyClusters = new HashSet<>();
+    private long expansions = 0;
+
+    // per query state of the abstract search, indexed by node id (plus the start and goal at the end)
+    // a slot only counts if its stamp matches the current query so nothing has to be cleared between queries
+    private int[] gScore;
+    private int[] cameFrom;
+    private int[] stamp;
+    private boolean[] closed;
+    private int query = 0;
+
+    // reusable scratch arrays for the BFS inside one cluster, in local coordinates (row * clusterSize + col)
+    private final int[] localDistance;
+    private final int[] localQueue;
+
+    public HierarchicalPathfinder(Tile[][] maze, int clusterSize) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.clusterSize = clusterSize;
+        this.clustersDown = (rows + clusterSize - 1) / clusterSize;
+        this.clustersAcross = (cols + clusterSize - 1) / clusterSize;
+        this.nodesPerCluster = 4 * clusterSize;
+
+        int clusters = clustersDown * clustersAcross;
+        this.borders = new int[clusters * 2][][];
+        this.clusterNodes = new int[clusters][];
+        this.intraDistances = new int[clusters][];
+        this.partnerIds = new int[clusters][][];
+        this.localDistance = new int[clusterSize * clusterSize];
+        this.localQueue = new int[clusterSize * clusterSize];
+
+        for (int i = 0; i < clusters; i++) {
+            dirtyClusters.add(i);
+        }
+    }
+
+    // marks the cluster of a changed tile so it gets rebuilt before the next query
+    public void invalidate(int row, int col) {
+        dirtyClusters.add((row / clusterSize) * clustersAcross + col / clusterSize);
+    }
+
+    // finds a path between two tiles, returns the cell indices (row * cols + col) from start to goal or null
+    public int[] findPath(Tile start, Tile goal) {
+        return findPath(start, goal, total -> false);
+    }
+
+    // same, but stop is asked with the expansions so far (cells of the cluster searches, including the ones that
+    // build the abstraction, plus abstract nodes) and returns true to give up, then the result is null too.
+    // clusters whose rebuild was cut short stay dirty for the next query
+    public int[] findPath(Tile start, Tile goal, LongPredicate stop) {
+        expansions = 0;
+        if (!rebuildDirtyClusters(stop)) return null;
+
+        int startCell = start.getRow() * cols + start.getCol();
+        int goalCell = goal.getRow() * cols + goal.getCol();
+        int startCluster = clusterOf(startCell);
+        int goalCluster = clusterOf(goalCell);
+
+        // connect the start and the goal to the entrances of their own clusters
+        int[] startEdges = distancesToNodes(startCluster, startCell);
+        int[] goalEdges = distancesToNodes(goalCluster, goalCell);
+        int direct = -1;
+        if (startCluster == goalCluster) {
+            clusterBfs(startCluster, startCell, goalCell);
+            direct = localDistance[localIndex(goalCell)];
+        }
+
+        // the start and the goal get the two ids after all the entrance nodes
+        int total = clusterNodes.length * nodesPerCluster;
+        final int START = total;
+        final int GOAL = total + 1;
+        if (gScore == null) {
+            gScore = new int[total + 2];
+            cameFrom = new int[total + 2];
+            stamp = new int[total + 2];
+            closed = new boolean[total + 2];
+        }
+        query++;
+
+        // A* over the entrance graph, the heap holds f << 32 | node id
+        LongHeap openSet = new LongHeap();
+        touch(START, 0, -1);
+        openSet.push(((long) heuristic(startCell, goalCell) << 32) | START);
+        int goalG = Integer.MAX_VALUE;
+
+        while (!openSet.isEmpty()) {
+            long entry = openSet.pop();
+            int u = (int) entry;
+            if ((int) (entry >>> 32) >= goalG) break;
+            if (closed[u]) continue;
+            closed[u] = true;
+            expansions++;
+            if (stop.test(expansions)) return null;
+            int g = gScore[u];
+
+            if (u == START) {
+                int[] nodes = clusterNodes[startCluster];
+                for (int i = 0; i < nodes.length; i++) {
+                    if (startEdges[i] >= 0) relax(openSet, startCluster * nodesPerCluster + i, nodes[i], g + startEdges[i], u, goalCell);
+                }
+                if (direct >= 0 && g + direct < goalG) {
+                    goalG = g + direct;
+                    touch(GOAL, goalG, u);
+                }
+                continue;
+            }
+
+            int cluster = u / nodesPerCluster;
+            int position = u % nodesPerCluster;
+            int[] nodes = clusterNodes[cluster];
+            int[] distances = intraDistances[cluster];
+            int n = nodes.length;
+
+            // other entrances of the same cluster
+            for (int i = 0; i < n; i++) {
+                int d = distances[position * n + i];
+                if (i != position && d >= 0) relax(openSet, cluster * nodesPerCluster + i, nodes[i], g + d, u, goalCell);
+            }
+            // one step across the border
+            for (int partner : partnerIds[cluster][position]) {
+                int partnerCell = clusterNodes[partner / nodesPerCluster][partner % nodesPerCluster];
+                relax(openSet, partner, partnerCell, g + 1, u, goalCell);
+            }
+            // into the goal
+            if (cluster == goalCluster && goalEdges[position] >= 0 && g + goalEdges[position] < goalG) {
+                goalG = g + goalEdges[position];
+                touch(GOAL, goalG, u);
+            }
+        }
+
+        if (goalG == Integer.MAX_VALUE) return null;
+
+        // walk the abstract path back and refine every hop into cells
+        List<Integer> abstractPath = new ArrayList<>();
+        abstractPath.add(goalCell);
+        for (int node = cameFrom[GOAL]; node != START; node = cameFrom[node]) {
+            abstractPath.add(clusterNodes[node / nodesPerCluster][node % nodesPerCluster]);
+        }
+        abstractPath.add(startCell);
+        Collections.reverse(abstractPath);
+        return refine(abstractPath);
+    }
+
+    private void relax(LongHeap openSet, int node, int cell, int newG, int from, int goalCell) {
+        if (stamp[node] == query && (closed[node] || gScore[node] <= newG)) return;
+        touch(node, newG, from);
+        openSet.push(((long) (newG + heuristic(cell, goalCell)) << 32) | node);
+    }
+
+    private void touch(int node, int g, int from) {
+        if (stamp[node] != query) {
+            stamp[node] = query;
+            closed[node] = false;
+        }
+        gScore[node] = g;
+        cameFrom[node] = from;
+    }
+
+    // turns a list of abstract hops into the full list of cells
+    private int[] refine(List<Integer> abstractPath) {
+        List<Integer> cells = new ArrayList<>();
+        cells.add(abstractPath.get(0));
+        for (int i = 1; i < abstractPath.size(); i++) {
+            int from = abstractPath.get(i - 1);
+            int to = abstractPath.get(i);
+            if (from == to) continue;
+            if (clusterOf(from) != clusterOf(to)) {
+                // a hop across a border is a single step
+                cells.add(to);
+                continue;
+            }
+            int[] segment = clusterPath(clusterOf(from), from, to);
+            for (int j = 1; j < segment.length; j++) {
+                cells.add(segment[j]);
+            }
+        }
+        int[] path = new int[cells.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = cells.get(i);
+        }
+        return path;
+    }
+
+    // rebuilds the borders of every dirty cluster and the entrance graph of the clusters that touch them
+    // returns false if stop said to give up, then the dirty clusters stay dirty along with everything around
+    // them, so the next query rebuilds whatever may be half built
+    private boolean rebuildDirtyClusters(LongPredicate stop) {
+        if (dirtyClusters.isEmpty()) return true;
+
+        Set<Integer> affected = new HashSet<>();
+        for (int cluster : dirtyClusters) {
+            if (stop.test(expansions)) return false;
+            int cRow = cluster / clustersAcross;
+            int cCol = cluster % clustersAcross;
+            rebuildBorder(cluster, false);
+            rebuildBorder(cluster, true);
+            affected.add(cluster);
+            if (cCol + 1 < clustersAcross) affected.add(cluster + 1);
+            if (cRow + 1 < clustersDown) affected.add(cluster + clustersAcross);
+            if (cCol > 0) {
+                rebuildBorder(cluster - 1, false);
+                affected.add(cluster - 1);
+            }
+            if (cRow > 0) {
+                rebuildBorder(cluster - clustersAcross, true);
+                affected.add(cluster - clustersAcross);
+            }
+        }
+
+        for (int cluster : affected) {
+            rebuildNodes(cluster);
+            if (stop.test(expansions)) {
+                dirtyClusters.addAll(affected);
+                return false;
+            }
+        }
+        // node positions may have moved, so the links across the borders of these clusters
+        // (and of their neighbours, which point into them) are looked up again
+        Set<Integer> relink = new HashSet<>(affected);
+        for (int cluster : affected) {
+            int cRow = cluster / clustersAcross;
+            int cCol = cluster % clustersAcross;
+            if (cCol > 0) relink.add(cluster - 1);
+            if (cCol + 1 < clustersAcross) relink.add(cluster + 1);
+            if (cRow > 0) relink.add(cluster - clustersAcross);
+            if (cRow + 1 < clustersDown) relink.add(cluster + clustersAcross);
+        }
+        for (int cluster : relink) {
+            rebuildPartners(cluster);
+            if (stop.test(expansions)) {
+                dirtyClusters.addAll(affected);
+                return false;
+            }
+        }
+        dirtyClusters.clear();
+        return true;
+    }
+
+    // finds the entrances on the right (or bottom) border of a cluster
+    // every run of cells that are open on both sides gets one entrance in the middle, long runs get one at each end
+    private void rebuildBorder(int cluster, boolean bottom) {
+        List<int[]> pairs = new ArrayList<>();
+        int cRow = cluster / clustersAcross;
+        int cCol = cluster % clustersAcross;
+
+        // the fixed coordinate of this side of the border, and the range we walk along it
+        int fixed = bottom ? (cRow + 1) * clusterSize - 1 : (cCol + 1) * clusterSize - 1;
+        if (fixed + 1 < (bottom ? rows : cols)) {
+            int from = (bottom ? cCol : cRow) * clusterSize;
+            int to = Math.min(from + clusterSize, bottom ? cols : rows);
+
+            int runStart = -1;
+            for (int i = from; i <= to; i++) {
+                boolean open = i < to && isOpenAcross(fixed, i, bottom);
+                if (open && runStart < 0) {
+                    runStart = i;
+                } else if (!open && runStart >= 0) {
+                    int length = i - runStart;
+                    if (length < 6) {
+                        pairs.add(borderPair(fixed, runStart + length / 2, bottom));
+                    } else {
+                        pairs.add(borderPair(fixed, runStart, bottom));
+                        pairs.add(borderPair(fixed, i - 1, bottom));
+                    }
+                    runStart = -1;
+                }
+            }
+        }
+        borders[cluster * 2 + (bottom ? 1 : 0)] = pairs.toArray(new int[0][]);
+    }
+
+    private boolean isOpenAcross(int fixed, int along, boolean bottom) {
+        if (bottom) {
+            return !maze[fixed][along].isWall() && !maze[fixed + 1][along].isWall();
+        }
+        return !maze[along][fixed].isWall() && !maze[along][fixed + 1].isWall();
+    }
+
+    private int[] borderPair(int fixed, int along, boolean bottom) {
+        if (bottom) {
+            return new int[] {fixed * cols + along, (fixed + 1) * cols + along};
+        }
+        return new int[] {along * cols + fixed, along * cols + fixed + 1};
+    }
+
+    // the four borders of a cluster as {pairs, side of the pair that lies in this cluster}
+    private void forEachBorderPair(int cluster, java.util.function.BiConsumer<int[], Integer> action) {
+        int cRow = cluster / clustersAcross;
+        int cCol = cluster % clustersAcross;
+        for (int[] pair : borders[cluster * 2]) action.accept(pair, 0);
+        for (int[] pair : borders[cluster * 2 + 1]) action.accept(pair, 0);
+        if (cCol > 0) for (int[] pair : borders[(cluster - 1) * 2]) action.accept(pair, 1);
+        if (cRow > 0) for (int[] pair : borders[(cluster - clustersAcross) * 2 + 1]) action.accept(pair, 1);
+    }
+
+    // collects the entrance cells of a cluster from its four borders and measures the distances between them
+    private void rebuildNodes(int cluster) {
+        LinkedHashSet<Integer> nodes = new LinkedHashSet<>();
+        forEachBorderPair(cluster, (pair, side) -> nodes.add(pair[side]));
+
+        int[] nodeArray = new int[nodes.size()];
+        int i = 0;
+        for (int cell : nodes) {
+            nodeArray[i++] = cell;
+        }
+        clusterNodes[cluster] = nodeArray;
+
+        int n = nodeArray.length;
+        int[] distances = new int[n * n];
+        for (int a = 0; a < n; a++) {
+            int[] fromA = distancesToNodes(cluster, nodeArray[a]);
+            System.arraycopy(fromA, 0, distances, a * n, n);
+        }
+        intraDistances[cluster] = distances;
+    }
+
+    // links every entrance of a cluster to the node ids of the cells across its borders
+    private void rebuildPartners(int cluster) {
+        int[] nodes = clusterNodes[cluster];
+        List<List<Integer>> links = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            links.add(new ArrayList<>());
+        }
+        forEachBorderPair(cluster, (pair, side) -> {
+            int here = positionOf(cluster, pair[side]);
+            int other = pair[1 - side];
+            int otherCluster = clusterOf(other);
+            links.get(here).add(otherCluster * nodesPerCluster + positionOf(otherCluster, other));
+        });
+
+        int[][] ids = new int[nodes.length][];
+        for (int i = 0; i < nodes.length; i++) {
+            ids[i] = links.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        partnerIds[cluster] = ids;
+    }
+
+    private int positionOf(int cluster, int cell) {
+        int[] nodes = clusterNodes[cluster];
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == cell) return i;
+        }
+        throw new IllegalStateException("Cell " + cell + " is not an entrance of cluster " + cluster);
+    }
+
+    // BFS inside one cluster from a cell, returns the distance to every entrance of the cluster (-1 if unreachable)
+    private int[] distancesToNodes(int cluster, int fromCell) {
+        clusterBfs(cluster, fromCell, -1);
+        int[] nodes = clusterNodes[cluster];
+        int[] result = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = localDistance[localIndex(nodes[i])];
+        }
+        return result;
+    }
+
+    // shortest cell path between two cells of the same cluster, staying inside the cluster
+    private int[] clusterPath(int cluster, int fromCell, int toCell) {
+        // BFS from the target so we can read the path forwards by always stepping to a closer cell
+        clusterBfs(cluster, toCell, fromCell);
+        int distance = localDistance[localIndex(fromCell)];
+        int top = (cluster / clustersAcross) * clusterSize;
+        int left = (cluster % clustersAcross) * clusterSize;
+        int height = Math.min(clusterSize, rows - top);
+        int width = Math.min(clusterSize, cols - left);
+
+        int[] path = new int[distance + 1];
+        int row = fromCell / cols - top;
+        int col = fromCell % cols - left;
+        path[0] = fromCell;
+        for (int step = 1; step <= distance; step++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int newRow = row + ParentLinks.ROW_STEP[dir];
+                int newCol = col + ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= height || newCol < 0 || newCol >= width) continue;
+                if (localDistance[newRow * clusterSize + newCol] == distance - step) {
+                    row = newRow;
+                    col = newCol;
+                    break;
+                }
+            }
+            path[step] = (top + row) * cols + left + col;
+        }
+        return path;
+    }
+
+    // fills localDistance for the cluster, stops early once stopCell is reached (-1 to run to the end)
+    private void clusterBfs(int cluster, int fromCell, int stopCell) {
+        int top = (cluster / clustersAcross) * clusterSize;
+        int left = (cluster % clustersAcross) * clusterSize;
+        int height = Math.min(clusterSize, rows - top);
+        int width = Math.min(clusterSize, cols - left);
+        int stop = stopCell < 0 ? -1 : localIndex(stopCell);
+
+        Arrays.fill(localDistance, -1);
+        int head = 0;
+        int tail = 0;
+        int source = localIndex(fromCell);
+        localDistance[source] = 0;
+        localQueue[tail++] = source;
+
+        while (head < tail) {
+            int local = localQueue[head++];
+            expansions++;
+            if (local == stop) return;
+            int row = local / clusterSize;
+            int col = local % clusterSize;
+            int distance = localDistance[local];
+
+            for (int dir = 0; dir < 4; dir++) {
+                int newRow = row + ParentLinks.ROW_STEP[dir];
+                int newCol = col + ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= height || newCol < 0 || newCol >= width) continue;
+                int next = newRow * clusterSize + newCol;
+                if (localDistance[next] >= 0 || maze[top + newRow][left + newCol].isWall()) continue;
+                localDistance[next] = distance + 1;
+                localQueue[tail++] = next;
+            }
+        }
+    }
+
+    private int localIndex(int cell) {
+        return (cell / cols % clusterSize) * clusterSize + cell % cols % clusterSize;
+    }
+
+    private int clusterOf(int cell) {
+        return (cell / cols / clusterSize) * clustersAcross + (cell % cols) / clusterSize;
+    }
+
+    private int heuristic(int a, int b) {
+        return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+    }
+
+    // number of abstract nodes plus cells expanded by the last query (with the rebuild it needed)
+    public long getExpansions() { return expansions; }
+
+    // a binary min heap of longs, so the open set doesn't box every entry
+    private static class LongHeap {
+        private long[] heap = new long[64];
+        private int size = 0;
+
+        boolean isEmpty() { return size == 0; }
+
+        void push(long value) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long result = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return result;
+        }
+    }
+}
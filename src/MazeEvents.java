@@ -0,0 +1,109 @@
+import jdk.jfr.*;
+
+// Java Flight Recorder events for the phases of a run: loading the file, converting it to tiles, resetting the
+// tiles, the search itself and painting the maze. a recording (java -XX:StartFlightRecording ...) shows them as
+// a timeline next to the GC and allocation events, under the "Maze Solver" category
+//
+// custom events are enabled by default, with no threshold and without stack traces. while nobody is recording
+// begin() and commit() do next to nothing, so the events are always compiled in
+public final class MazeEvents {
+
+    private MazeEvents() {}
+
+    @Name("maze.Load")
+    @Label("Load Maze")
+    @Category("Maze Solver")
+    @Description("Reading and validating a maze file")
+    @StackTrace(false)
+    public static class Load extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Format")
+        public String format;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int cols;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("maze.Convert")
+    @Label("Convert To Tiles")
+    @Category("Maze Solver")
+    @Description("Building the tile grid the solvers work on")
+    @StackTrace(false)
+    public static class Convert extends Event {
+        @Label("Source")
+        public String source;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int cols;
+    }
+
+    @Name("maze.Reset")
+    @Label("Reset Maze")
+    @Category("Maze Solver")
+    @Description("Clearing the state of the last search before a new one")
+    @StackTrace(false)
+    public static class Reset extends Event {
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int cols;
+    }
+
+    @Name("maze.Solve")
+    @Label("Solve")
+    @Category("Maze Solver")
+    @Description("One search from the start to an end, including its reset")
+    @StackTrace(false)
+    public static class Solve extends Event {
+        @Label("Algorithm")
+        public String algorithm;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int cols;
+
+        @Label("Expansions")
+        public long expansions;
+
+        @Label("Counter")
+        public int counter;
+
+        @Label("Outcome")
+        @Description("FOUND, NO_PATH, TIMEOUT, EXPANSION_LIMIT, CANCELLED, BEAM_PRUNED or GAVE_UP, or the exception that ended the search")
+        public String outcome;
+    }
+
+    @Name("maze.Render")
+    @Label("Render Maze")
+    @Category("Maze Solver")
+    @Description("Painting the visible part of the maze")
+    @StackTrace(false)
+    public static class Render extends Event {
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int cols;
+
+        @Label("Zoom")
+        @Description("Pixels per cell")
+        public double zoom;
+
+        @Label("Painted Pixels")
+        public long pixels;
+    }
+}
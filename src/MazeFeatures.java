@@ -0,0 +1,82 @@
+import java.util.*;
+
+// a few numbers that describe what kind of maze this is, measured in one pass over the tiles
+// (about what one resetMaze costs). Auto uses them to pick an algorithm
+public class MazeFeatures {
+
+    private final int rows;
+    private final int cols;
+    private final long openCells;
+    // open tiles with exactly two open neighbours: the inside of a corridor
+    private final long corridorCells;
+    private final int teleports;
+    private final int counterTiles;
+    private final int ends;
+    // manhattan distance from the start to the closest end
+    private final int startGoalDistance;
+
+    public MazeFeatures(Tile[][] maze, Tile start, List<Tile> endTiles) {
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        long open = 0;
+        long corridors = 0;
+        int teleportCount = 0;
+        int counterCount = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                Tile tile = maze[i][j];
+                if (tile.isWall()) continue;
+                open++;
+                if (tile.isTeleport()) teleportCount++;
+                if (tile.isCounterUp() || tile.isCounterDown()) counterCount++;
+
+                int openNeighbors = 0;
+                for (int dir = 0; dir < 4; dir++) {
+                    int newRow = i + ParentLinks.ROW_STEP[dir];
+                    int newCol = j + ParentLinks.COL_STEP[dir];
+                    if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols && !maze[newRow][newCol].isWall()) {
+                        openNeighbors++;
+                    }
+                }
+                if (openNeighbors == 2) corridors++;
+            }
+        }
+        this.openCells = open;
+        this.corridorCells = corridors;
+        this.teleports = teleportCount;
+        this.counterTiles = counterCount;
+        this.ends = endTiles.size();
+
+        int distance = Integer.MAX_VALUE;
+        for (Tile end : endTiles) {
+            distance = Math.min(distance, Math.abs(end.getRow() - start.getRow()) + Math.abs(end.getCol() - start.getCol()));
+        }
+        this.startGoalDistance = distance;
+    }
+
+    public long getCells() { return (long) rows * cols; }
+
+    // share of the tiles that aren't walls
+    public double getOpenRatio() { return (double) openCells / getCells(); }
+
+    // share of the open tiles that are plain corridor, close to 1 for perfect mazes and low for open rooms
+    public double getCorridorFraction() { return openCells == 0 ? 0 : (double) corridorCells / openCells; }
+
+    // start to goal distance relative to the size of the maze, 1 means corner to corner
+    public double getRelativeDistance() { return (double) startGoalDistance / (rows + cols - 2); }
+
+    // getters
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public long getOpenCells() { return openCells; }
+    public int getTeleports() { return teleports; }
+    public int getCounterTiles() { return counterTiles; }
+    public int getEnds() { return ends; }
+    public int getStartGoalDistance() { return startGoalDistance; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%dx%d, %.0f%% open, %.0f%% corridors, %d teleports, %d counter tiles, %d ends, distance %d",
+                rows, cols, getOpenRatio() * 100, getCorridorFraction() * 100, teleports, counterTiles, ends, startGoalDistance);
+    }
+}
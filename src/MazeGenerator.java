@@ -0,0 +1,304 @@
+import java.io.*;
+import java.util.*;
+
+// this class generates random mazes in the same text format that MazeLoader reads
+// cells live on the odd rows and columns of the output and the even ones are the walls between them
+// the Eller mode only keeps one row of cells in memory at a time so it can stream mazes of any height straight to disk
+// the backtracker mode needs the whole grid of cells in memory but produces long winding corridors
+public class MazeGenerator {
+
+    // the two generation algorithms we support
+    public enum Mode {
+        ELLER,
+        BACKTRACKER
+    }
+
+    private final Random random;
+    private final Mode mode;
+
+    // size of the output in characters (rounded down to odd numbers so the border is always a wall)
+    private final int rows;
+    private final int cols;
+    // size of the maze in cells
+    private final int cellRows;
+    private final int cellCols;
+
+    // wall density: 1.0 gives a perfect maze (exactly one path between any two cells),
+    // lower values knock out extra walls which opens loops and wider areas
+    private final double wallDensity;
+
+    // special tiles we still have to place, keyed by cell row then cell column
+    private final Map<Integer, Map<Integer, Character>> specials = new HashMap<>();
+
+    public MazeGenerator(long seed, Mode mode, int rows, int cols, double wallDensity) {
+        if (rows < 3 || cols < 3) {
+            throw new IllegalArgumentException("Maze must be at least 3x3.");
+        }
+        if (wallDensity < 0 || wallDensity > 1) {
+            throw new IllegalArgumentException("Wall density must be between 0 and 1.");
+        }
+        this.random = new Random(seed);
+        this.mode = mode;
+        this.rows = rows % 2 == 0 ? rows - 1 : rows;
+        this.cols = cols % 2 == 0 ? cols - 1 : cols;
+        this.cellRows = (this.rows - 1) / 2;
+        this.cellCols = (this.cols - 1) / 2;
+        this.wallDensity = wallDensity;
+    }
+
+    // generates the maze and writes it to the given file
+    // the maze always gets exactly one start (A) and one end (B) because MazeLoader requires that,
+    // the other special tiles are placed as many times as asked
+    public void generate(String filename, int teleports, int counterUps, int counterDowns) throws IOException {
+        int total = 2 + teleports + counterUps + counterDowns;
+        if (total > (long) cellRows * cellCols) {
+            throw new IllegalArgumentException("Too many special tiles for a maze of this size.");
+        }
+
+        // pick the special cells up front so we can stamp them while streaming the rows out
+        specials.clear();
+        placeSpecial('A', 1);
+        placeSpecial('B', 1);
+        placeSpecial('T', teleports);
+        placeSpecial('C', counterUps);
+        placeSpecial('c', counterDowns);
+
+        try (Writer writer = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+            if (mode == Mode.ELLER) {
+                generateEller(writer);
+            } else {
+                generateBacktracker(writer);
+            }
+        }
+    }
+
+    // picks random free cells for a special tile type
+    private void placeSpecial(char ch, int count) {
+        for (int placed = 0; placed < count; ) {
+            int r = random.nextInt(cellRows);
+            int c = random.nextInt(cellCols);
+            Map<Integer, Character> row = specials.computeIfAbsent(r, k -> new HashMap<>());
+            if (!row.containsKey(c)) {
+                row.put(c, ch);
+                placed++;
+            }
+        }
+    }
+
+    // Eller's algorithm: every cell in the current row belongs to a set, sets are joined to the right at random
+    // and every set must continue down at least once, on the last row all different sets are joined
+    // the sets of one row are kept in a small union find so the memory is O(width) no matter how tall the maze is
+    private void generateEller(Writer writer) throws IOException {
+        int[] parent = new int[cellCols];
+        int[] carried = new int[cellCols];     // set label carried down from the previous row, -1 for none
+        int[] firstOfLabel = new int[cellCols];
+        boolean[] hasDown = new boolean[cellCols];
+        boolean[] right = new boolean[cellCols];   // true if the wall to the right of the cell is open
+        boolean[] down = new boolean[cellCols];    // true if the wall below the cell is open
+
+        Arrays.fill(carried, -1);
+        Arrays.fill(firstOfLabel, -1);
+        writeBorder(writer);
+
+        for (int r = 0; r < cellRows; r++) {
+            boolean lastRow = r == cellRows - 1;
+
+            // every cell starts as its own set, then cells that came from the same set above are joined again
+            for (int c = 0; c < cellCols; c++) {
+                parent[c] = c;
+            }
+            for (int c = 0; c < cellCols; c++) {
+                int label = carried[c];
+                if (label < 0) continue;
+                if (firstOfLabel[label] < 0) {
+                    firstOfLabel[label] = c;
+                } else {
+                    union(parent, c, firstOfLabel[label]);
+                }
+            }
+            for (int c = 0; c < cellCols; c++) {
+                if (carried[c] >= 0) firstOfLabel[carried[c]] = -1;
+            }
+
+            // join neighbours to the right, different sets at random (always on the last row)
+            // and cells of the same set only when the wall density lets us open a loop
+            for (int c = 0; c < cellCols - 1; c++) {
+                boolean sameSet = find(parent, c) == find(parent, c + 1);
+                if (sameSet) {
+                    right[c] = random.nextDouble() >= wallDensity;
+                } else {
+                    right[c] = lastRow || random.nextBoolean() || random.nextDouble() >= wallDensity;
+                    if (right[c]) union(parent, c, c + 1);
+                }
+            }
+            right[cellCols - 1] = false;
+
+            // open the walls below, every set needs at least one way down so nothing gets cut off
+            if (!lastRow) {
+                Arrays.fill(hasDown, false);
+                for (int c = 0; c < cellCols; c++) {
+                    down[c] = random.nextBoolean() || random.nextDouble() >= wallDensity;
+                    if (down[c]) hasDown[find(parent, c)] = true;
+                }
+                for (int c = 0; c < cellCols; c++) {
+                    int root = find(parent, c);
+                    if (!hasDown[root]) {
+                        down[c] = true;
+                        hasDown[root] = true;
+                    }
+                }
+                for (int c = 0; c < cellCols; c++) {
+                    carried[c] = down[c] ? find(parent, c) : -1;
+                }
+            } else {
+                Arrays.fill(down, false);
+            }
+
+            writeCellRow(writer, r, right, down, lastRow);
+        }
+    }
+
+    // recursive backtracker (with an explicit stack so big mazes don't overflow the call stack)
+    // it walks to a random unvisited neighbour and backs up when it gets stuck
+    private void generateBacktracker(Writer writer) throws IOException {
+        // it keeps a few arrays over all the cells, unlike Eller which only needs one row
+        if ((long) cellRows * cellCols > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Maze is too big for the backtracker, use Eller for this size.");
+        }
+        int cells = cellRows * cellCols;
+        boolean[] right = new boolean[cells];
+        boolean[] down = new boolean[cells];
+        BitSet visited = new BitSet(cells);
+        int[] stack = new int[cells];
+        int top = 0;
+
+        int[] options = new int[4];
+        stack[top++] = 0;
+        visited.set(0);
+
+        while (top > 0) {
+            int current = stack[top - 1];
+            int r = current / cellCols;
+            int c = current % cellCols;
+
+            // collect the unvisited neighbours
+            int count = 0;
+            if (r > 0 && !visited.get(current - cellCols)) options[count++] = current - cellCols;
+            if (r < cellRows - 1 && !visited.get(current + cellCols)) options[count++] = current + cellCols;
+            if (c > 0 && !visited.get(current - 1)) options[count++] = current - 1;
+            if (c < cellCols - 1 && !visited.get(current + 1)) options[count++] = current + 1;
+
+            if (count == 0) {
+                top--;
+                continue;
+            }
+
+            // carve the wall between the current cell and the chosen one
+            int next = options[random.nextInt(count)];
+            openBetween(right, down, current, next);
+            visited.set(next);
+            stack[top++] = next;
+        }
+
+        // knock out extra walls according to the wall density
+        if (wallDensity < 1) {
+            for (int i = 0; i < cells; i++) {
+                if (i % cellCols < cellCols - 1 && random.nextDouble() >= wallDensity) right[i] = true;
+                if (i / cellCols < cellRows - 1 && random.nextDouble() >= wallDensity) down[i] = true;
+            }
+        }
+
+        writeBorder(writer);
+        boolean[] rowRight = new boolean[cellCols];
+        boolean[] rowDown = new boolean[cellCols];
+        for (int r = 0; r < cellRows; r++) {
+            System.arraycopy(right, r * cellCols, rowRight, 0, cellCols);
+            System.arraycopy(down, r * cellCols, rowDown, 0, cellCols);
+            writeCellRow(writer, r, rowRight, rowDown, r == cellRows - 1);
+        }
+    }
+
+    private void openBetween(boolean[] right, boolean[] down, int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        if (high - low == 1) {
+            right[low] = true;
+        } else {
+            down[low] = true;
+        }
+    }
+
+    // writes one row of cells and the wall row under it
+    private void writeCellRow(Writer writer, int r, boolean[] right, boolean[] down, boolean lastRow) throws IOException {
+        char[] line = new char[cols];
+        Map<Integer, Character> rowSpecials = specials.getOrDefault(r, Collections.emptyMap());
+
+        line[0] = '#';
+        for (int c = 0; c < cellCols; c++) {
+            line[2 * c + 1] = rowSpecials.getOrDefault(c, ' ');
+            line[2 * c + 2] = right[c] ? ' ' : '#';
+        }
+        line[cols - 1] = '#';
+        writer.write(line);
+        writer.write('\n');
+
+        if (lastRow) {
+            writeBorder(writer);
+            return;
+        }
+
+        // the wall row, the corners between cells always stay walls
+        Arrays.fill(line, '#');
+        for (int c = 0; c < cellCols; c++) {
+            if (down[c]) line[2 * c + 1] = ' ';
+        }
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    private void writeBorder(Writer writer) throws IOException {
+        char[] line = new char[cols];
+        Arrays.fill(line, '#');
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    // union find helpers with path halving
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) parent[rootA] = rootB;
+    }
+
+    // usage: java MazeGenerator <output file> <rows> <cols> [seed] [wall density] [teleports] [counter ups] [counter downs] [eller|backtracker]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java MazeGenerator <output file> <rows> <cols> [seed] [wall density] [T count] [C count] [c count] [eller|backtracker]");
+            return;
+        }
+
+        String output = args[0];
+        int rows = Integer.parseInt(args[1]);
+        int cols = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.currentTimeMillis();
+        double density = args.length > 4 ? Double.parseDouble(args[4]) : 1.0;
+        int teleports = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        int counterUps = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+        int counterDowns = args.length > 7 ? Integer.parseInt(args[7]) : 0;
+        Mode mode = args.length > 8 ? Mode.valueOf(args[8].toUpperCase()) : Mode.ELLER;
+
+        long startTime = System.currentTimeMillis();
+        MazeGenerator generator = new MazeGenerator(seed, mode, rows, cols, density);
+        generator.generate(output, teleports, counterUps, counterDowns);
+        System.out.println("Generated " + generator.rows + "x" + generator.cols + " maze in "
+                + (System.currentTimeMillis() - startTime) + " ms (seed " + seed + ")");
+    }
+}
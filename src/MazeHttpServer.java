@@ -0,0 +1,462 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// a small HTTP service so other programs can solve mazes without the UI, on the HTTP server that comes with
+// the JDK. it only listens on the loopback address and needs nothing from the network
+//
+//   POST /mazes              upload a maze, text or compact (.mzb) format, answers with its id
+//                            (?multipleEnds=true lets a text maze have several B's)
+//   GET  /mazes              the mazes in the registry
+//   GET  /algorithms         what /solve accepts (SolverEngines.names())
+//   GET  /solve?maze=<id>&algorithm=<name>[&timeout=<ms>][&expansions=<n>][&path=false]
+//                            solves and answers with the outcome, the metrics and the path as run length
+//                            moves ("D12 R3 J5,7", see writePathRunLength). the timeout is capped at
+//                            MAX_TIMEOUT_MILLIS, 0 asks for all of it
+//
+// a maze is parsed once and kept under the SHA-256 of the uploaded bytes, uploading the same file again just
+// gives back the id. the registry keeps the most recently used mazes, the oldest one is dropped when it is full.
+// mazes with more than MAX_CELLS cells are turned away before they are parsed
+//
+// every request runs on its own virtual thread (VirtualThreads). the solve itself runs on one of a fixed number
+// of platform threads (one per core) with a big stack like solveAsync (DFS recurses once per tile), when all of
+// them are busy and the queue is full the request gets a 503. solves of the same maze take turns because they
+// share its tiles: the request waits for the maze's lock on its own thread before it asks for a solver thread,
+// so a busy maze never ties up a solver thread, and different mazes are solved at the same time as far as
+// there are threads for them. the timeout counts from the request and is the same however long the wait:
+// time spent waiting for the maze or a thread comes off the search's budget, a request whose time runs out
+// before its search started answers TIMEOUT without one, and otherwise the request waits until the search has
+// stopped, so a TIMEOUT answer means nothing is left running on the maze
+public class MazeHttpServer {
+
+    private static final int DEFAULT_PORT = 8765;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+    private static final int DEFAULT_MAX_MAZES = 16;
+    private static final long MAX_UPLOAD_BYTES = 256L * 1024 * 1024;
+    // a Tile per cell plus the search state, this many cells take a few GB of heap
+    private static final long MAX_CELLS = 64L * 1024 * 1024;
+    private static final long MAX_TIMEOUT_MILLIS = 60_000;
+    private static final long SOLVER_STACK_SIZE = 512L * 1024 * 1024;
+    // solves waiting for one of the solver threads, more than this and the request is turned away
+    private static final int MAX_QUEUED_SOLVES = 64;
+
+    // one maze in the registry
+    private static class Entry {
+        final String id;
+        final String format;
+        final MazeSolver solver;
+        // held by the request whose search runs on the solver, the next one waits for it with its timeout
+        final ReentrantLock lock = new ReentrantLock();
+        final int rows;
+        final int cols;
+
+        Entry(String id, String format, Tile[][] maze) {
+            this.id = id;
+            this.format = format;
+            this.solver = new MazeSolver(maze);
+            this.rows = maze.length;
+            this.cols = maze[0].length;
+        }
+
+        String toJson(boolean cached) {
+            return "{\"id\":" + json(id) + ",\"format\":" + json(format) + ",\"rows\":" + rows + ",\"cols\":" + cols
+                    + ",\"ends\":" + solver.getEnds().size() + ",\"cached\":" + cached + "}";
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ExecutorService solves;
+    private final long defaultTimeoutMillis;
+    private final int maxMazes;
+    // least recently used first
+    private final LinkedHashMap<String, Entry> mazes = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MazeHttpServer(int port, long defaultTimeoutMillis, int maxMazes) throws IOException {
+        this.defaultTimeoutMillis = clampTimeout(defaultTimeoutMillis);
+        this.maxMazes = maxMazes;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.requests = VirtualThreads.newPerTaskExecutor("maze-http");
+        // one solver thread per core, they go away when there is nothing to solve
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_SOLVES), task -> {
+                    Thread thread = new Thread(null, task, "maze-http-solver", SOLVER_STACK_SIZE);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.solves = pool;
+        server.setExecutor(requests);
+        server.createContext("/mazes", exchange -> handle(exchange, this::mazes));
+        server.createContext("/algorithms", exchange -> handle(exchange, this::algorithms));
+        server.createContext("/solve", exchange -> handle(exchange, this::solve));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // stops taking requests, waits up to a second for the running ones
+    public void stop() {
+        server.stop(1);
+        requests.shutdownNow();
+        solves.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // what a handler answers: the status and a JSON body
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    // thrown by the handlers for anything the client did wrong, it becomes {"error": ...} with the status
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (RequestException e) {
+            response = new Response(e.status, "{\"error\":" + json(e.getMessage()) + "}");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // the loaders and the solver say what is wrong with a maze this way
+            response = new Response(400, "{\"error\":" + json(e.getMessage()) + "}");
+        } catch (RuntimeException | IOException | Error e) {
+            // an Error too (out of memory and the like), the client gets an answer instead of a connection that hangs
+            response = new Response(500, "{\"error\":" + json(String.valueOf(e)) + "}");
+        }
+        byte[] body = (response.body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Response mazes(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            StringBuilder list = new StringBuilder("{\"mazes\":[");
+            synchronized (mazes) {
+                String separator = "";
+                for (Entry entry : mazes.values()) {
+                    list.append(separator).append(entry.toJson(true));
+                    separator = ",";
+                }
+            }
+            return new Response(200, list.append("]}").toString());
+        }
+        if (!exchange.getRequestMethod().equals("POST")) {
+            throw new RequestException(405, "Use GET or POST on /mazes.");
+        }
+
+        byte[] data = readBody(exchange.getRequestBody());
+        if (data.length == 0) throw new RequestException(400, "The upload is empty.");
+        String id = sha256(data);
+        Entry entry;
+        synchronized (mazes) {
+            entry = mazes.get(id);
+        }
+        if (entry != null) return new Response(200, entry.toJson(true));
+
+        boolean compact = CompactMaze.isCompact(data);
+        long cells = compact ? CompactMaze.declaredCells(data) : textCells(data);
+        if (cells > MAX_CELLS) {
+            throw new RequestException(413, "Mazes with more than " + MAX_CELLS + " cells aren't accepted.");
+        }
+
+        // parse outside of the lock, two uploads of the same new maze both parse it and the second one wins
+        boolean multipleEnds = "true".equals(query(exchange).get("multipleEnds"));
+        String name = "upload " + id.substring(0, 12);
+        Tile[][] maze;
+        String format;
+        if (compact) {
+            maze = CompactMaze.read(new ByteArrayInputStream(data), name).toTiles();
+            format = "compact";
+        } else {
+            Reader reader = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8);
+            maze = Tile.convertToTiles(new MazeLoader(multipleEnds).load(reader, name));
+            format = "text";
+        }
+        entry = new Entry(id, format, maze);
+        synchronized (mazes) {
+            mazes.put(id, entry);
+            Iterator<Entry> oldest = mazes.values().iterator();
+            while (mazes.size() > maxMazes) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        return new Response(201, entry.toJson(false));
+    }
+
+    private Response algorithms(HttpExchange exchange) {
+        StringBuilder list = new StringBuilder("{\"algorithms\":[");
+        String separator = "";
+        for (String name : SolverEngines.names()) {
+            list.append(separator).append(json(name));
+            separator = ",";
+        }
+        return new Response(200, list.append("]}").toString());
+    }
+
+    private Response solve(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String id = query.get("maze");
+        String algorithm = query.get("algorithm");
+        if (id == null || algorithm == null) {
+            throw new RequestException(400, "Need maze=<id> and algorithm=<name>.");
+        }
+        if (!Arrays.asList(SolverEngines.names()).contains(algorithm)) {
+            throw new RequestException(400, "Unknown algorithm: " + algorithm + " (see /algorithms)");
+        }
+        long timeoutMillis = clampTimeout(number(query, "timeout", defaultTimeoutMillis));
+        long maxExpansions = number(query, "expansions", 0);
+        boolean withPath = !"false".equals(query.get("path"));
+        Entry entry;
+        synchronized (mazes) {
+            entry = mazes.get(id);
+        }
+        if (entry == null) throw new RequestException(404, "No maze with id " + id + ", upload it to /mazes first.");
+
+        long requested = System.nanoTime();
+        try {
+            if (!entry.lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return new Response(200, timeoutJson(entry, algorithm, requested));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the maze.");
+        }
+        // the lock is held until the search is done, so the path is written before the next search resets the tiles
+        try {
+            // the budget is made when the search starts, with what is left of the timeout
+            AtomicReference<SearchBudget> budget = new AtomicReference<>();
+            Future<String> answer;
+            try {
+                answer = solves.submit(() -> {
+                    long queuedMillis = (System.nanoTime() - requested) / 1_000_000;
+                    if (queuedMillis >= timeoutMillis) return timeoutJson(entry, algorithm, requested);
+                    SearchBudget own = new SearchBudget(timeoutMillis - queuedMillis, maxExpansions);
+                    // the request was interrupted before the search started
+                    if (!budget.compareAndSet(null, own)) own.cancel();
+                    SolveResult result = entry.solver.solve(algorithm, own);
+                    return resultJson(entry, result, queuedMillis, withPath);
+                });
+            } catch (RejectedExecutionException e) {
+                throw new RequestException(503, "Too many solves are waiting, try again later.");
+            }
+            try {
+                long remaining = timeoutMillis - (System.nanoTime() - requested) / 1_000_000;
+                try {
+                    return new Response(200, answer.get(Math.max(1, remaining), TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    // still waiting for a solver thread: it never runs
+                    if (answer.cancel(false)) return new Response(200, timeoutJson(entry, algorithm, requested));
+                    // the search is running and its budget ends with the timeout, its own answer says so
+                    return new Response(200, answer.get());
+                }
+            } catch (InterruptedException e) {
+                answer.cancel(false);
+                SearchBudget cancelled = new SearchBudget(0, 0);
+                cancelled.cancel();
+                if (!budget.compareAndSet(null, cancelled)) budget.get().cancel();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while solving.");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new RuntimeException(String.valueOf(cause));
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    // the answer for a request whose time ran out before its search could start
+    private static String timeoutJson(Entry entry, String algorithm, long requested) {
+        return "{\"maze\":" + json(entry.id) + ",\"algorithm\":" + json(algorithm)
+                + ",\"outcome\":\"TIMEOUT\",\"found\":false,\"expansions\":0,\"queuedMillis\":"
+                + (System.nanoTime() - requested) / 1_000_000 + ",\"elapsedMillis\":0}";
+    }
+
+    // the timeout of a request, 0 means as long as the server allows
+    private static long clampTimeout(long timeoutMillis) {
+        return timeoutMillis <= 0 ? MAX_TIMEOUT_MILLIS : Math.min(timeoutMillis, MAX_TIMEOUT_MILLIS);
+    }
+
+    // at most how many cells a text maze has: its lines times the longest of them
+    private static long textCells(byte[] data) {
+        long lines = 0;
+        int longest = 0;
+        int length = 0;
+        for (byte b : data) {
+            if (b == '\n') {
+                lines++;
+                longest = Math.max(longest, length);
+                length = 0;
+            } else {
+                length++;
+            }
+        }
+        if (length > 0) lines++;
+        return lines * Math.max(longest, length);
+    }
+
+    private static String resultJson(Entry entry, SolveResult result, long queuedMillis, boolean withPath)
+            throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("{\"maze\":").append(json(entry.id))
+                .append(",\"algorithm\":").append(json(result.getAlgorithm()))
+                .append(",\"outcome\":").append(json(result.getStopReason().name()))
+                .append(",\"found\":").append(result.isFound())
+                .append(",\"expansions\":").append(result.getExpansions())
+                .append(",\"counter\":").append(result.getCounter())
+                .append(",\"queuedMillis\":").append(queuedMillis)
+                .append(",\"elapsedMillis\":").append(result.getElapsedMillis());
+        if (result.isFound()) {
+            Tile end = entry.solver.getReachedEnd();
+            int length = 0;
+            for (Iterator<Tile> path = entry.solver.pathIterator(end); path.hasNext(); path.next()) length++;
+            out.append(",\"pathLength\":").append(length - 1)
+                    .append(",\"end\":[").append(end.getRow()).append(',').append(end.getCol()).append(']');
+            if (withPath) {
+                out.append(",\"path\":\"");
+                entry.solver.writePathRunLength(end, out);
+                out.append('"');
+            }
+        } else if (result.getBestTile() != null) {
+            out.append(",\"closest\":[").append(result.getBestTile().getRow()).append(',')
+                    .append(result.getBestTile().getCol()).append(']');
+        }
+        return out.append('}').toString();
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            body.write(buffer, 0, read);
+            if (body.size() > MAX_UPLOAD_BYTES) {
+                throw new RequestException(413, "Mazes bigger than " + MAX_UPLOAD_BYTES + " bytes aren't accepted.");
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every JDK has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> values = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return values;
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals <= 0) continue;
+            values.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static long number(Map<String, String> query, String key, long fallback) {
+        String value = query.get(key);
+        if (value == null) return fallback;
+        try {
+            long number = Long.parseLong(value);
+            if (number < 0) throw new NumberFormatException();
+            return number;
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, key + " has to be a number of at least 0, not " + value);
+        }
+    }
+
+    // a JSON string literal
+    private static String json(String text) {
+        if (text == null) return "null";
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (ch < 0x20) out.append(String.format("\\u%04x", (int) ch));
+                    else out.append(ch);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    // usage: java MazeHttpServer [-p port] [-t default timeout ms] [-m mazes kept]
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        int maxMazes = DEFAULT_MAX_MAZES;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p" -> port = Integer.parseInt(args[++i]);
+                    case "-t" -> timeoutMillis = Long.parseLong(args[++i]);
+                    case "-m" -> maxMazes = Integer.parseInt(args[++i]);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (maxMazes < 1) throw new IllegalArgumentException("Need room for at least one maze.");
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.out.println("Usage: java MazeHttpServer [-p port] [-t default timeout ms] [-m mazes kept]");
+            return;
+        }
+
+        MazeHttpServer server = new MazeHttpServer(port, timeoutMillis, maxMazes);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Listening on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                + server.getPort() + "/ (" + (VirtualThreads.isAvailable() ? "virtual" : "platform")
+                + " threads per request)");
+    }
+}
@@ -1,5 +1,6 @@
 import java.io.*;
 import java.util.*;
+import java.util.stream.IntStream;
 
 public class MazeLoader {
 
@@ -13,12 +14,49 @@ public class MazeLoader {
     private int counterIncreaseCount = 0;    // char C
     private int counterDecreaseCount = 0;    // char c
 
+    // roughly how many cells each parallel parsing chunk gets, small mazes end up as a single chunk
+    private static final int CHUNK_CELLS = 1 << 18;
+
+    // mazes with several goals (any B counts as reached) are only accepted when asked for
+    private final boolean allowMultipleEnds;
+
+    public MazeLoader() {
+        this(false);
+    }
+
+    public MazeLoader(boolean allowMultipleEnds) {
+        this.allowMultipleEnds = allowMultipleEnds;
+    }
+
 
     public char[][] load(String filename) throws IOException {
+        try (Reader reader = new FileReader(filename)) {
+            return load(reader, filename);
+        }
+    }
+
+    // same as load(filename) for a maze that doesn't come from a file (an upload for example),
+    // the name only shows up in the Load event. the caller closes the reader
+    public char[][] load(Reader source, String name) throws IOException {
+        MazeEvents.Load event = new MazeEvents.Load();
+        event.begin();
+        try {
+            char[][] loaded = read(new BufferedReader(source));
+            event.rows = loaded.length;
+            event.cols = loaded[0].length;
+            event.succeeded = true;
+            return loaded;
+        } finally {
+            event.file = name;
+            event.format = "text";
+            event.commit();
+        }
+    }
+
+    private char[][] read(BufferedReader reader) throws IOException {
     	
         List<String> lines = new ArrayList<>();
         
-        BufferedReader reader = new BufferedReader(new FileReader(filename));
         String line;
         int rowLength = -1;
 
@@ -40,7 +78,6 @@ public class MazeLoader {
             
             lines.add(line);
         }
-        reader.close();
 
         // Number of rows and columns
         int rows = lines.size();
@@ -50,37 +87,88 @@ public class MazeLoader {
         maze = new char[rows][cols];
 
         // Fill maze and validate characters
-        for (int i = 0; i < rows; i++) {
+        // the rows are split into chunks that are parsed in parallel, each chunk remembers its own counts
+        // and the first bad character it saw, then we merge them in row order so the earliest error still wins
+        int chunkRows = Math.max(1, CHUNK_CELLS / Math.max(1, cols));
+        int chunkCount = (rows + chunkRows - 1) / chunkRows;
+        ChunkResult[] results = new ChunkResult[chunkCount];
+
+        IntStream chunks = IntStream.range(0, chunkCount);
+        if (chunkCount > 1) {
+            chunks = chunks.parallel();
+        }
+        chunks.forEach(chunk -> {
+            int from = chunk * chunkRows;
+            int to = Math.min(rows, from + chunkRows);
+            results[chunk] = parseRows(lines, from, to, cols);
+        });
+
+        for (ChunkResult result : results) {
+            // the first chunk with an error holds the earliest bad character in the file
+            if (result.errorRow >= 0) {
+                throw new IllegalArgumentException("Invalid character found: '" + result.errorChar + "' at (" + result.errorRow + ", " + result.errorCol + ")");
+            }
+            startCount += result.startCount;
+            endCount += result.endCount;
+            teleportCount += result.teleportCount;
+            counterIncreaseCount += result.counterIncreaseCount;
+            counterDecreaseCount += result.counterDecreaseCount;
+        }
+
+        // Check tile counts
+        if (startCount != 1) throw new IllegalArgumentException("Maze must have exactly one start tile (A).");
+        if (allowMultipleEnds) {
+            if (endCount < 1) throw new IllegalArgumentException("Maze must have at least one end tile (B).");
+        } else if (endCount != 1) throw new IllegalArgumentException("Maze must have exactly one end tile (B).");
+        //if (teleportCount != 1) throw new IllegalArgumentException("Maze must have exactly one teleportation tile (T).");    //this one could be removed for smaller mazes to avoid infinite teleportation 
+        //if (counterIncreaseCount != 1) throw new IllegalArgumentException("Maze must have exactly one counter increase tile (C).");
+        //if (counterDecreaseCount != 1) throw new IllegalArgumentException("Maze must have exactly one counter decrease tile (c).");
+
+        return maze;
+    }
+
+    // parses and validates the rows [from, to) into the maze, stopping at the first invalid character
+    private ChunkResult parseRows(List<String> lines, int from, int to, int cols) {
+        ChunkResult result = new ChunkResult();
+        for (int i = from; i < to; i++) {
             String currentLine = lines.get(i);
+            char[] row = maze[i];
+            currentLine.getChars(0, cols, row, 0);
+
             for (int j = 0; j < cols; j++) {
-                char ch = currentLine.charAt(j);
+                char ch = row[j];
 
                 // Validate character
                 if (!(ch == 'A' || ch == 'B' || ch == 'C' || ch == 'c' || ch == 'T' || ch == '#' || ch == ' ')) {
-                    throw new IllegalArgumentException("Invalid character found: '" + ch + "' at (" + i + ", " + j + ")");
+                    result.errorRow = i;
+                    result.errorCol = j;
+                    result.errorChar = ch;
+                    return result;
                 }
 
                 // Count special tiles
                 switch (ch) {
-                    case 'A' -> startCount++;
-                    case 'B' -> endCount++;
-                    case 'T' -> teleportCount++;
-                    case 'C' -> counterIncreaseCount++;
-                    case 'c' -> counterDecreaseCount++;
+                    case 'A' -> result.startCount++;
+                    case 'B' -> result.endCount++;
+                    case 'T' -> result.teleportCount++;
+                    case 'C' -> result.counterIncreaseCount++;
+                    case 'c' -> result.counterDecreaseCount++;
                 }
-
-                maze[i][j] = ch;
             }
         }
+        return result;
+    }
 
-        // Check tile counts
-        if (startCount != 1) throw new IllegalArgumentException("Maze must have exactly one start tile (A).");
-        if (endCount != 1) throw new IllegalArgumentException("Maze must have exactly one end tile (B).");
-        //if (teleportCount != 1) throw new IllegalArgumentException("Maze must have exactly one teleportation tile (T).");    //this one could be removed for smaller mazes to avoid infinite teleportation 
-        //if (counterIncreaseCount != 1) throw new IllegalArgumentException("Maze must have exactly one counter increase tile (C).");
-        //if (counterDecreaseCount != 1) throw new IllegalArgumentException("Maze must have exactly one counter decrease tile (c).");
-
-        return maze;
+    // what one chunk of rows found: its special tile counts and its first invalid character (errorRow is -1 if none)
+    private static class ChunkResult {
+        int startCount;
+        int endCount;
+        int teleportCount;
+        int counterIncreaseCount;
+        int counterDecreaseCount;
+        int errorRow = -1;
+        int errorCol;
+        char errorChar;
     }
 
 }
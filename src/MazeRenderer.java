@@ -0,0 +1,394 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+// draws a maze and what a search did in it into PNG files, without a window, for mazes far too big for MazeUI
+// the maze is cut into TILE_SIZE x TILE_SIZE tiles at one pixel per cell. the tiles are drawn in parallel, each
+// straight into the raster of its own BufferedImage, and written as tile_<row>_<col>.png. on the way every tile
+// also draws its part of overview.png, the whole maze shrunk by a power of two until it fits the overview size
+//
+// the images use MazeUI's colors as a palette, so a pixel is one byte (the kind of the cell) and the PNGs stay
+// small. in the overview a pixel stands for a block of cells and gets the highest kind in it (the path over dead
+// ends over explored tiles over the special tiles), so a path one cell wide doesn't vanish when shrunk. blocks
+// with none of those are open or wall by majority (open on a tie), like MazeViewport when zoomed out
+// only one tile per thread is in memory at a time, plus the overview and whatever the cells are read from
+public class MazeRenderer {
+
+    public static final int TILE_SIZE = 256;
+    public static final int DEFAULT_OVERVIEW_SIZE = 2048;
+
+    // what a cell is drawn as, also the palette index. in the overview the higher kind wins a block
+    public static final int WALL = 0;
+    public static final int EMPTY = 1;
+    public static final int COUNTER_UP = 2;
+    public static final int COUNTER_DOWN = 3;
+    public static final int TELEPORT = 4;
+    public static final int EXPLORED = 5;
+    public static final int DEAD_END = 6;
+    public static final int PATH = 7;
+    public static final int START = 8;
+    public static final int END = 9;
+
+    private static final IndexColorModel PALETTE = palette(MazeUI.WALL_COLOR, MazeUI.EMPTY_COLOR,
+            MazeUI.COUNTER_UP_COLOR, MazeUI.COUNTER_DOWN_COLOR, MazeUI.TELEPORT_COLOR, MazeUI.EXPLORED_COLOR,
+            MazeUI.DEAD_END_COLOR, MazeUI.FINAL_PATH_COLOR, MazeUI.START_COLOR, MazeUI.END_COLOR);
+
+    // where the cells come from. a whole tile is read at once, so a source that isn't thread safe
+    // only has to be locked once per tile
+    public interface CellSource {
+        int getRows();
+        int getCols();
+        // the kinds of the cells in rows row..row+height-1 and cols col..col+width-1, row major into kinds
+        void read(int row, int col, int height, int width, byte[] kinds);
+    }
+
+    private final CellSource source;
+    private final int rows;
+    private final int cols;
+    // the overview pixel of a cell is (row >> scaleShift, col >> scaleShift)
+    private final int scaleShift;
+    private final int overviewRows;
+    private final int overviewCols;
+
+    private long renderMillis = 0;
+
+    public MazeRenderer(CellSource source) {
+        this(source, DEFAULT_OVERVIEW_SIZE);
+    }
+
+    // overviewSize is the most pixels the overview gets along its longer side
+    public MazeRenderer(CellSource source, int overviewSize) {
+        if (overviewSize < 1) {
+            throw new IllegalArgumentException("The overview has to be at least 1 pixel.");
+        }
+        this.source = source;
+        this.rows = source.getRows();
+        this.cols = source.getCols();
+        int shift = 0;
+        while ((Math.max(rows, cols) - 1 >> shift) + 1 > overviewSize) shift++;
+        this.scaleShift = shift;
+        this.overviewRows = (rows - 1 >> shift) + 1;
+        this.overviewCols = (cols - 1 >> shift) + 1;
+    }
+
+    // a maze after a MazeSolver search: the visited tiles, the path to the end it got to and the dead ends
+    // if the search was recorded (setTraceRecording), the same things the MazeUI window shows
+    public static CellSource of(Tile[][] maze, MazeSolver solver) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        BitSet path = new BitSet();
+        if (solver.getReachedEnd() != null) {
+            solver.pathIterator(solver.getReachedEnd()).forEachRemaining(tile -> path.set(tile.getRow() * cols + tile.getCol()));
+        }
+        // the trace decodes itself on first use, so the dead ends are picked out here and not from the tiles' threads
+        BitSet deadEnds = new BitSet();
+        SearchTrace trace = solver.getTrace();
+        if (trace != null) {
+            for (int i = 0; i < trace.size(); i++) {
+                int[] event = trace.eventAt(i);
+                if (event[2] == SearchTrace.DEAD_END) deadEnds.set(event[0] * cols + event[1]);
+            }
+        }
+
+        return new CellSource() {
+            public int getRows() { return rows; }
+            public int getCols() { return cols; }
+
+            public void read(int row, int col, int height, int width, byte[] kinds) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        Tile tile = maze[row + y][col + x];
+                        int cell = (row + y) * cols + col + x;
+                        int kind;
+                        // same order as MazeUI.cellColor
+                        if (!tile.isStart() && !tile.isEnd() && path.get(cell)) {
+                            kind = PATH;
+                        } else if (!tile.isStart() && !tile.isEnd() && !tile.isWall() && deadEnds.get(cell)) {
+                            kind = DEAD_END;
+                        } else if (!tile.isStart() && !tile.isEnd() && tile.isVisited()) {
+                            kind = EXPLORED;
+                        } else {
+                            kind = kindOf(tile.getType());
+                        }
+                        kinds[y * width + x] = (byte) kind;
+                    }
+                }
+            }
+        };
+    }
+
+    // a paged grid after a PagedSolver search: the visited cells, and the path if found is true
+    // the path is kept as one bit per cell, the rest is read from the pages while drawing. the grid isn't thread
+    // safe, so the tiles take turns reading from it (which is only copying bytes, the PNGs are still written
+    // in parallel). pages of TILE_SIZE cells mean every tile reads exactly one page
+    public static CellSource of(PagedMazeGrid grid, PagedSolver solver, boolean found) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        long[] path = new long[(int) (((long) rows * cols + 63) >>> 6)];
+        if (found) {
+            solver.walkPathBackwards(index -> path[(int) (index >>> 6)] |= 1L << index);
+        }
+        byte[] kindOfType = new byte[PagedMazeGrid.TYPE_MASK + 1];
+        kindOfType[PagedMazeGrid.EMPTY] = EMPTY;
+        kindOfType[PagedMazeGrid.WALL] = WALL;
+        kindOfType[PagedMazeGrid.START] = START;
+        kindOfType[PagedMazeGrid.END] = END;
+        kindOfType[PagedMazeGrid.TELEPORT] = TELEPORT;
+        kindOfType[PagedMazeGrid.COUNTER_UP] = COUNTER_UP;
+        kindOfType[PagedMazeGrid.COUNTER_DOWN] = COUNTER_DOWN;
+
+        return new CellSource() {
+            public int getRows() { return rows; }
+            public int getCols() { return cols; }
+
+            public void read(int row, int col, int height, int width, byte[] kinds) {
+                synchronized (grid) {
+                    for (int y = 0; y < height; y++) {
+                        for (int x = 0; x < width; x++) {
+                            int value = grid.get(row + y, col + x);
+                            int type = value & PagedMazeGrid.TYPE_MASK;
+                            long index = (long) (row + y) * cols + col + x;
+                            byte kind = kindOfType[type];
+                            if (type != PagedMazeGrid.START && type != PagedMazeGrid.END) {
+                                if ((path[(int) (index >>> 6)] & 1L << index) != 0) {
+                                    kind = PATH;
+                                } else if ((value & PagedMazeGrid.VISITED) != 0) {
+                                    kind = EXPLORED;
+                                }
+                            }
+                            kinds[y * width + x] = kind;
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    private static int kindOf(TileType type) {
+        switch (type) {
+            case WALL: return WALL;
+            case START: return START;
+            case END: return END;
+            case TELEPORT: return TELEPORT;
+            case COUNTER_UP: return COUNTER_UP;
+            case COUNTER_DOWN: return COUNTER_DOWN;
+            default: return EMPTY;
+        }
+    }
+
+    private static IndexColorModel palette(Color... colors) {
+        byte[] red = new byte[colors.length];
+        byte[] green = new byte[colors.length];
+        byte[] blue = new byte[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            red[i] = (byte) colors[i].getRed();
+            green[i] = (byte) colors[i].getGreen();
+            blue[i] = (byte) colors[i].getBlue();
+        }
+        return new IndexColorModel(8, colors.length, red, green, blue);
+    }
+
+    // draws all the tiles and the overview into dir (made if it isn't there), returns the number of tiles written
+    public int render(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        long startTime = System.nanoTime();
+        // the default cache puts a temp file behind every stream, the PNGs are small enough for memory
+        ImageIO.setUseCache(false);
+
+        int tileRows = (rows + TILE_SIZE - 1) / TILE_SIZE;
+        int tileCols = (cols + TILE_SIZE - 1) / TILE_SIZE;
+        byte[] overview = new byte[overviewRows * overviewCols];
+        Arrays.fill(overview, (byte) -1);
+        // open cells minus walls of every block
+        int[] votes = new int[overview.length];
+        try {
+            IntStream.range(0, tileRows * tileCols).parallel().forEach(tile -> {
+                int tileRow = tile / tileCols;
+                int tileCol = tile % tileCols;
+                try {
+                    renderTile(tileRow, tileCol, overview, votes, new File(dir, "tile_" + tileRow + "_" + tileCol + ".png"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (int i = 0; i < overview.length; i++) {
+            if (overview[i] < 0) overview[i] = (byte) (votes[i] >= 0 ? EMPTY : WALL);
+        }
+
+        BufferedImage image = new BufferedImage(overviewCols, overviewRows, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(overview, 0, pixels, 0, overview.length);
+        write(image, new File(dir, "overview.png"));
+
+        renderMillis = (System.nanoTime() - startTime) / 1_000_000;
+        return tileRows * tileCols;
+    }
+
+    private void renderTile(int tileRow, int tileCol, byte[] overview, int[] votes, File file) throws IOException {
+        int row = tileRow * TILE_SIZE;
+        int col = tileCol * TILE_SIZE;
+        int height = Math.min(TILE_SIZE, rows - row);
+        int width = Math.min(TILE_SIZE, cols - col);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+        byte[] kinds = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        source.read(row, col, height, width, kinds);
+
+        // the tile's part of the overview is shrunk on its own first, so the shared one is only locked for the copy
+        // (blocks bigger than a tile are shared by several tiles, that's why it is a merge and not a plain copy)
+        int firstRow = row >> scaleShift;
+        int firstCol = col >> scaleShift;
+        int partRows = (row + height - 1 >> scaleShift) - firstRow + 1;
+        int partCols = (col + width - 1 >> scaleShift) - firstCol + 1;
+        byte[] part = new byte[partRows * partCols];
+        Arrays.fill(part, (byte) -1);
+        int[] partVotes = new int[part.length];
+        for (int y = 0; y < height; y++) {
+            int partRow = ((row + y >> scaleShift) - firstRow) * partCols;
+            for (int x = 0; x < width; x++) {
+                byte kind = kinds[y * width + x];
+                int pixel = partRow + (col + x >> scaleShift) - firstCol;
+                if (kind > EMPTY) {
+                    if (kind > part[pixel]) part[pixel] = kind;
+                } else {
+                    partVotes[pixel] += kind == EMPTY ? 1 : -1;
+                }
+            }
+        }
+        synchronized (overview) {
+            for (int y = 0; y < partRows; y++) {
+                for (int x = 0; x < partCols; x++) {
+                    int pixel = (firstRow + y) * overviewCols + firstCol + x;
+                    if (part[y * partCols + x] > overview[pixel]) overview[pixel] = part[y * partCols + x];
+                    votes[pixel] += partVotes[y * partCols + x];
+                }
+            }
+        }
+
+        write(image, file);
+    }
+
+    private static void write(BufferedImage image, File file) throws IOException {
+        if (!ImageIO.write(image, "png", file)) {
+            throw new IOException("No PNG writer for " + file);
+        }
+    }
+
+    // getters
+    // how many cells (along each side) one overview pixel stands for
+    public int getOverviewScale() { return 1 << scaleShift; }
+    public int getOverviewRows() { return overviewRows; }
+    public int getOverviewCols() { return overviewCols; }
+    public long getRenderMillis() { return renderMillis; }
+
+    // solves every maze and draws it into its own directory under the output directory, named after the file
+    // -paged runs PagedSolver on a page file instead of loading the maze, for mazes that don't fit in memory
+    // (the algorithm is then bfs or astar)
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java MazeRenderer [-a algorithm] [-o output dir] [-s overview size] [-paged] <maze files...>");
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+
+        String algorithm = null;
+        File outDir = new File("render");
+        int overviewSize = DEFAULT_OVERVIEW_SIZE;
+        boolean paged = false;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-a")) {
+                algorithm = args[++i];
+            } else if (args[i].equals("-o")) {
+                outDir = new File(args[++i]);
+            } else if (args[i].equals("-s")) {
+                overviewSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-paged")) {
+                paged = true;
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (algorithm == null) algorithm = paged ? "bfs" : "BFS";
+
+        // the solvers print every step they finish, keep only our own report on the console
+        PrintStream console = System.out;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        int failed = 0;
+        for (String file : files) {
+            String name = new File(file).getName();
+            if (name.lastIndexOf('.') > 0) name = name.substring(0, name.lastIndexOf('.'));
+            File dir = new File(outDir, name);
+            try {
+                long startTime = System.currentTimeMillis();
+                String found;
+                MazeRenderer renderer;
+                int tiles;
+                if (paged) {
+                    File pageFile = File.createTempFile("maze", ".pages");
+                    pageFile.deleteOnExit();
+                    try (PagedMazeGrid grid = PagedMazeGrid.create(file, pageFile.getPath(), TILE_SIZE, 64)) {
+                        PagedSolver solver = new PagedSolver(grid, 1 << 16);
+                        boolean solved;
+                        System.setOut(quiet);
+                        try {
+                            solved = algorithm.equalsIgnoreCase("astar") ? solver.AStar() : solver.BFS();
+                        } finally {
+                            System.setOut(console);
+                        }
+                        found = solved ? "path length " + solver.walkPathBackwards(index -> { }) : "no path";
+                        renderer = new MazeRenderer(of(grid, solver, solved), overviewSize);
+                        tiles = renderer.render(dir);
+                    } finally {
+                        pageFile.delete();
+                    }
+                } else {
+                    Tile[][] maze = CompactMaze.isCompactFile(file) ? CompactMaze.read(file).toTiles()
+                            : Tile.convertToTiles(new MazeLoader(true).load(file));
+                    MazeSolver solver = new MazeSolver(maze);
+                    // dead end filling is the only search that marks dead ends, they come out of its recording
+                    solver.setTraceRecording(algorithm.contains("Dead End"));
+                    // on solveAsync's big stack thread, DFS recurses once per tile on its path
+                    System.setOut(quiet);
+                    SolveResult result;
+                    try {
+                        result = solver.solveAsync(algorithm, new SearchBudget(0, 0)).get();
+                    } catch (ExecutionException e) {
+                        // reported like any other failed file, the next one still gets rendered
+                        throw new IllegalStateException(describe(e.getCause()), e.getCause());
+                    } finally {
+                        System.setOut(console);
+                    }
+                    found = result.isFound() ? "found" : result.getStopReason().toString().toLowerCase();
+                    renderer = new MazeRenderer(of(maze, solver), overviewSize);
+                    tiles = renderer.render(dir);
+                }
+                System.out.println(file + ": " + found + ", " + tiles + " tiles and a " + renderer.getOverviewCols() + "x"
+                        + renderer.getOverviewRows() + " overview (1:" + renderer.getOverviewScale() + ") in " + dir
+                        + ", drawn in " + renderer.getRenderMillis() + " ms, " + (System.currentTimeMillis() - startTime) + " ms in all");
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                System.out.println(file + ": " + describe(e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (failed > 0) System.exit(1);
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof StackOverflowError) return "The search ran out of stack";
+        return e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+}
@@ -1,4 +1,7 @@
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class MazeSolver {
 
@@ -7,11 +10,74 @@ public class MazeSolver {
     private Counter counter;
     private Tile start;
     private Tile end;
+    // every end tile (mazes loaded with multiple ends allowed have more than one) and the one the last search reached
+    private final List<Tile> ends = new ArrayList<>();
+    private Tile reachedEnd;
     private MazeUI ui; 
+    // where every tile was reached from, packed as 2 bit directions instead of a reference per tile
+    private ParentLinks parents;
+    // cluster abstraction for hierarchical A*, built on first use and kept for later queries
+    private HierarchicalPathfinder hierarchy;
+    private static final int HPA_CLUSTER_SIZE = 16;
+    // anytime A* engine (also built on first use) and the bound of the last path it gave us
+    private AnytimeAStar anytime;
+    private static final double ANYTIME_START_WEIGHT = 3.0;
+    private static final double ANYTIME_WEIGHT_STEP = 0.5;
+    private double anytimeBound = Double.POSITIVE_INFINITY;
+    // beam search: how many tiles a layer keeps, and how many times a beam that dropped the way to the end
+    // is made BEAM_WIDENING times wider and run again (0 keeps the memory at what the width says)
+    private int beamWidth = BeamSearch.widthFor(1 << 20);
+    private int beamRetries = 0;
+    private static final int BEAM_WIDENING = 4;
+    // region label of every tile, computed once per maze to reject unreachable ends instantly
+    private ConnectedComponents components;
+    // distance to the closest end from every tile, built once and then answers path queries from any start
+    private DistanceField distanceField;
+    // what the maze looks like to Auto, measured on first use
+    private MazeFeatures features;
+    // wall mask as bitboards for the bit parallel BFS, built once and patched when a tile changes
+    private BitboardBfs bitboard;
+    // the articulation point analysis from the start, kept until the start or a tile changes
+    private Chokepoints chokepoints;
+    // limits of the current search and how far it got
+    private SearchBudget budget = SearchBudget.unlimited();
+    private SolveResult.StopReason stopReason;
+    private long expansions;
+    private Tile bestTile;
+    // teleports pick their destination from this generator, it is reseeded before every search
+    // so running the same algorithm with the same seed always gives the same result
+    private final Random random = new Random();
+    private long seed = new Random().nextLong();
+    // the recording of the last search, only kept while trace recording is on
+    private boolean recordTrace = false;
+    private SearchTrace trace;
+    
+    // the algorithms solve() understands, these are also the names shown in the UI
+    public static final String[] ALGORITHMS = {
+        "Depth-First Search (DFS)", 
+        "Breadth-First Search (BFS)", 
+        "A* Search",
+        "Dijkstra's Algorithm",
+        "Greedy Best-First Search",
+        "Dead End Fill",
+        "Hierarchical A* (HPA*)",
+        "Anytime A* (ARA*)",
+        "IDA* (iterative deepening)",
+        "Fringe Search",
+        "Beam Search",
+        "Distance Field (reverse BFS)",
+        "Bitboard BFS",
+        "Chokepoint Segments (parallel BFS)",
+        "Wall Follower (left hand)",
+        "Wall Follower (right hand)",
+        "Pledge",
+        "Tremaux"
+    };
 
     public MazeSolver(Tile[][] maze) {
         this.maze = maze;
         this.counter = new Counter(0);
+        this.parents = new ParentLinks(maze.length, maze[0].length);
         locateStartAndEnd();
     }
     
@@ -22,13 +88,16 @@ public class MazeSolver {
 
     // this method locates our start point and end point by iterating over each tile 
     private void locateStartAndEnd() {
+        ends.clear();
         for (Tile[] row : maze) {
             for (Tile tile : row) {
                 if (tile.isStart()) 
                     start = tile;
                 
-                if (tile.isEnd())
+                if (tile.isEnd()) {
                     end = tile;
+                    ends.add(tile);
+                }
             }
         }
         if (start == null || end == null) {
@@ -40,6 +109,12 @@ public class MazeSolver {
     public boolean DFS() {
         // Reset all tiles before starting
         resetMaze();
+
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
         
         // initially just mark the starting tile as visited
         start.setVisited(true);
@@ -59,6 +134,7 @@ public class MazeSolver {
     	
         // Check if we reached the end
         if (current.isEnd()) {
+            reachedEnd = current;
             System.out.println("Reached the end! Final counter: " + counter.value);
             if (ui != null) {
                 ui.updateCounter(counter.value);
@@ -67,8 +143,11 @@ public class MazeSolver {
             return true;
         }
         
+        // stop here if we ran out of time or expansions, or the caller cancelled us
+        if (outOfBudget(current)) return false;
+
         // Apply special effects
-        Tile next = current.applySpecialEffect(counter, maze);
+        Tile next = current.applySpecialEffect(counter, maze, random);
         
         // Handle teleportation. first we check that the current tile is not the previous tile before teleporting 
         if (next != current) {
@@ -76,7 +155,7 @@ public class MazeSolver {
             if (!next.isVisited()) {
             	// if this is a new tile, set it to visited before, save parent for backtracking and update counter and UI
                 next.setVisited(true);
-                next.setParent(current);
+                parents.set(next, current);
                 counter.value++;
                 
                 if (ui != null) {
@@ -101,7 +180,7 @@ public class MazeSolver {
         	// if they had not been visited before then 
             if (!neighbor.isVisited()) {
                 neighbor.setVisited(true);
-                neighbor.setParent(current);
+                parents.set(neighbor, current);
                 counter.value++;
                 
                 if (ui != null) {
@@ -124,6 +203,12 @@ public class MazeSolver {
     public boolean BFS() {
     	// reset the maze before starting 
         resetMaze();
+
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
         
         // BFS implements a queue frontier to load the last element first to ensure we go through all neighboring tiles before going to a deeper level 
         Queue<Tile> queue = new LinkedList<>();
@@ -146,6 +231,7 @@ public class MazeSolver {
             
             // Check if we reached the end
             if (current.isEnd()) {
+                reachedEnd = current;
                 System.out.println("Reached the end! Final counter: " + counter.value);
                 if (ui != null) {
                     ui.updateCounter(counter.value);
@@ -154,8 +240,11 @@ public class MazeSolver {
                 return true;
             }
             
+            // stop here if we ran out of time or expansions, or the caller cancelled us
+            if (outOfBudget(current)) return false;
+
             // Apply special effects
-            Tile next = current.applySpecialEffect(counter, maze);
+            Tile next = current.applySpecialEffect(counter, maze, random);
 
             // teleportation logic, first we check that the tile we teleported to is not the same as what we teleported from 
             if (next != current) {
@@ -164,7 +253,7 @@ public class MazeSolver {
                 if (!next.isVisited()) {
                 	//if everything is okay then we mark the current node as visited and load it to the Queue 
                     next.setVisited(true);
-                    next.setParent(current);
+                    parents.set(next, current);
                     queue.offer(next);
                 }
                 continue;
@@ -174,7 +263,7 @@ public class MazeSolver {
             for (Tile neighbor : current.getValidNeighbors(maze)) {
                 if (!neighbor.isVisited()) {
                     neighbor.setVisited(true);
-                    neighbor.setParent(current);
+                    parents.set(neighbor, current);
                     queue.offer(neighbor);
                 }
             }
@@ -190,6 +279,12 @@ public class MazeSolver {
         // Before we start, we reset the maze to clear visited flags, parent references, and counters
         resetMaze();
 
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
         // Creates a priority queue that sorts tiles by their total estimated cost (fScore),
         // ensuring that the most promising (cheapest) path is explored first
         PriorityQueue<AStarNode> openSet = new PriorityQueue<>((a, b) -> Double.compare(a.fScore, b.fScore));
@@ -235,6 +330,7 @@ public class MazeSolver {
 
             // Check if we have reached the goal tile
             if (current.isEnd()) {
+                reachedEnd = current;
                 System.out.println("Reached the end! Final counter: " + counter.value);
                 if (ui != null) {
                     ui.updateCounter(counter.value);
@@ -243,8 +339,11 @@ public class MazeSolver {
                 return true;
             }
 
+            // stop here if we ran out of time or expansions, or the caller cancelled us
+            if (outOfBudget(current)) return false;
+
             // Apply special effects like teleportation if the tile supports it
-            Tile next = current.applySpecialEffect(counter, maze);
+            Tile next = current.applySpecialEffect(counter, maze, random);
 
             // Handle teleportation: if we teleported to a new tile, process it
             if (next != current) {
@@ -256,7 +355,7 @@ public class MazeSolver {
                     // If this path is better than any previous path to the tile (or first time visiting it)
                     if (!gScore.containsKey(next) || tentativeGScore < gScore.get(next)) {
                         // Update the tile's parent to allow path reconstruction later
-                        next.setParent(current);
+                        parents.set(next, current);
 
                         // Store the new gScore and calculate fScore
                         gScore.put(next, tentativeGScore);
@@ -283,7 +382,7 @@ public class MazeSolver {
                 // If this path to the neighbor is better than any previous path
                 if (!gScore.containsKey(neighbor) || tentativeGScore < gScore.get(neighbor)) {
                     // Update the parent to enable path reconstruction
-                    neighbor.setParent(current);
+                    parents.set(neighbor, current);
 
                     // Store the gScore and fScore for the neighbor
                     gScore.put(neighbor, tentativeGScore);
@@ -329,6 +428,12 @@ public class MazeSolver {
         // Reset the maze before starting the search (clears visited flags, parents, and counter)
         resetMaze();
 
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
         // Priority queue that always picks the tile with the lowest heuristic (hScore)
         // Greedy Best-First Search only considers how close the tile is to the goal (not total path cost)
         PriorityQueue<GreedyNode> openSet = new PriorityQueue<>((a, b) -> Double.compare(a.hScore, b.hScore));
@@ -365,6 +470,7 @@ public class MazeSolver {
 
             // Check if we have reached the goal tile
             if (current.isEnd()) {
+                reachedEnd = current;
                 System.out.println("Reached the end! Final counter: " + counter.value);
                 if (ui != null) {
                     ui.updateCounter(counter.value);
@@ -373,14 +479,17 @@ public class MazeSolver {
                 return true;
             }
 
+            // stop here if we ran out of time or expansions, or the caller cancelled us
+            if (outOfBudget(current)) return false;
+
             // Apply special tile effects (e.g., teleportation)
-            Tile next = current.applySpecialEffect(counter, maze);
+            Tile next = current.applySpecialEffect(counter, maze, random);
 
             // If teleportation happens (next != current), process the teleported tile
             if (next != current) {
                 if (!closedSet.contains(next)) {
                     // Link the teleported tile to the current tile for path reconstruction
-                    next.setParent(current);
+                    parents.set(next, current);
                     next.setVisited(true);
 
                     // Add the teleported tile to the open set based on its heuristic
@@ -398,7 +507,7 @@ public class MazeSolver {
                 // If the neighbor hasn’t been visited yet
                 if (!neighbor.isVisited()) {
                     // Set parent for path reconstruction
-                    neighbor.setParent(current);
+                    parents.set(neighbor, current);
                     neighbor.setVisited(true);
 
                     // Add to open set with heuristic value (h(n))
@@ -430,6 +539,12 @@ public class MazeSolver {
         // Reset the maze to clear all visited flags, parent links, and UI counter
         resetMaze();
 
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
         // Priority queue that always selects the tile with the smallest distance from the start
         PriorityQueue<DijkstraNode> pq = new PriorityQueue<>((a, b) -> Double.compare(a.distance, b.distance));
 
@@ -465,6 +580,7 @@ public class MazeSolver {
 
             // Check if the goal has been reached
             if (current.isEnd()) {
+                reachedEnd = current;
                 System.out.println("Reached the end! Final counter: " + counter.value);
                 if (ui != null) {
                     ui.updateCounter(counter.value);
@@ -473,8 +589,11 @@ public class MazeSolver {
                 return true;
             }
 
+            // stop here if we ran out of time or expansions, or the caller cancelled us
+            if (outOfBudget(current)) return false;
+
             // Apply special effect (e.g., teleportation)
-            Tile next = current.applySpecialEffect(counter, maze);
+            Tile next = current.applySpecialEffect(counter, maze, random);
 
             // Handle teleportation
             if (next != current) {
@@ -484,7 +603,7 @@ public class MazeSolver {
                 // If this is the shortest path to this teleport destination
                 if (!distances.containsKey(next) || newDistance < distances.get(next)) {
                     distances.put(next, newDistance);
-                    next.setParent(current); // Set parent for path reconstruction
+                    parents.set(next, current); // Set parent for path reconstruction
                     next.setVisited(true);
                     pq.offer(new DijkstraNode(next, newDistance));
                 }
@@ -502,7 +621,7 @@ public class MazeSolver {
                 // Update distance and parent if it's the shortest path found so far
                 if (!distances.containsKey(neighbor) || newDistance < distances.get(neighbor)) {
                     distances.put(neighbor, newDistance);
-                    neighbor.setParent(current);
+                    parents.set(neighbor, current);
                     neighbor.setVisited(true);
                     pq.offer(new DijkstraNode(neighbor, newDistance));
                 }
@@ -532,6 +651,12 @@ public class MazeSolver {
         // Reset the maze before starting the algorithm
         resetMaze();
 
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
         // A 2D array to mark dead-end tiles
         boolean[][] isDeadEnd = new boolean[maze.length][maze[0].length];
         
@@ -544,6 +669,7 @@ public class MazeSolver {
 
             // Scan the entire maze
             for (int i = 0; i < maze.length; i++) {
+                if (budgetExceeded()) return false;
                 for (int j = 0; j < maze[i].length; j++) {
                     Tile tile = maze[i][j];
 
@@ -576,6 +702,8 @@ public class MazeSolver {
                         isDeadEnd[i][j] = true; // Mark as dead end
                         foundDeadEnd = true;    // Trigger another pass
                         counter.value++;        // Track how many dead ends we processed
+                        expansions++;           // each filled dead end counts against the budget
+                        if (trace != null) trace.record(SearchTrace.DEAD_END, i, j);
 
                         // Update the UI to mark the tile visually
                         if (ui != null) {
@@ -599,6 +727,7 @@ public class MazeSolver {
 
             // Check if we reached the goal
             if (current.isEnd()) {
+                reachedEnd = current;
                 System.out.println("Reached the end! Final counter: " + counter.value);
                 if (ui != null) {
                     ui.updateCounter(counter.value);
@@ -614,14 +743,17 @@ public class MazeSolver {
                 ui.updateUI();
             }
 
+            // stop here if we ran out of time or expansions, or the caller cancelled us
+            if (outOfBudget(current)) return false;
+
             // Apply special tile behavior (e.g., teleport)
-            Tile next = current.applySpecialEffect(counter, maze);
+            Tile next = current.applySpecialEffect(counter, maze, random);
 
             // If teleportation happened, check if destination is valid
             if (next != current) {
                 if (!next.isVisited() && !isDeadEnd[next.getRow()][next.getCol()]) {
                     next.setVisited(true);
-                    next.setParent(current);
+                    parents.set(next, current);
                     queue.offer(next);
                 }
                 continue; // Don't explore neighbors if we teleported
@@ -631,7 +763,7 @@ public class MazeSolver {
             for (Tile neighbor : current.getValidNeighbors(maze)) {
                 if (!isDeadEnd[neighbor.getRow()][neighbor.getCol()]) {
                     neighbor.setVisited(true);
-                    neighbor.setParent(current);
+                    parents.set(neighbor, current);
                     queue.offer(neighbor);
                 }
             }
@@ -643,31 +775,654 @@ public class MazeSolver {
     }
 
     
+    // Hierarchical A* (HPA*)
+    // searches the cached graph of cluster entrances and only fills in the cells of the clusters it passes through,
+    // repeated long queries on the same maze skip almost all of the work. the path is near optimal, not always shortest
+    public boolean hierarchicalAStar() {
+        resetMaze();
+
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        if (budgetExceeded()) return false;
+
+        // the abstraction is built once per maze and then only patched when tiles change
+        // building it is most of the work of the first query, so the budget is asked while that runs too
+        if (hierarchy == null) {
+            hierarchy = new HierarchicalPathfinder(maze, HPA_CLUSTER_SIZE);
+        }
+        int[] path = hierarchy.findPath(start, end, total -> {
+            stopReason = budget.check(total);
+            return stopReason != null;
+        });
+        expansions = hierarchy.getExpansions();
+        counter.value = (int) expansions;
+
+        if (path == null) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        acceptPath(path);
+        System.out.println("Reached the end! Final counter: " + counter.value);
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return true;
+    }
+    
+    // anytime A*: finds a first path fast with an inflated heuristic and keeps improving it until it is
+    // optimal or the budget runs out. every better path replaces the last one, the listener (can be null)
+    // sees each of them with its bound, getSuboptimalityBound() gives the bound of the one we ended with
+    public boolean anytimeAStar(AnytimeAStar.PathListener listener) {
+        resetMaze();
+        anytimeBound = Double.POSITIVE_INFINITY;
+
+        // reject right away if the end is in a part of the maze we can't get to
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        if (anytime == null) {
+            anytime = new AnytimeAStar(maze, ANYTIME_START_WEIGHT, ANYTIME_WEIGHT_STEP);
+        }
+        int[] path = anytime.findPath(start, end, budget, (improved, bound) -> {
+            System.out.println("Path of length " + (improved.length - 1) + " within " + bound + " of the shortest");
+            if (listener != null) listener.improved(improved, bound);
+        });
+        expansions = anytime.getExpansions();
+        counter.value = (int) expansions;
+
+        if (path == null) {
+            // either there is no path or the budget ran out before the first one
+            stopReason = budget.check(expansions);
+            System.out.println("No path found.");
+            return false;
+        }
+
+        // running out of budget after a path was found still counts as found, just with a looser bound
+        anytimeBound = anytime.getBound();
+        acceptPath(path);
+        System.out.println("Reached the end! Final counter: " + counter.value);
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return true;
+    }
+
+    public boolean anytimeAStar() {
+        return anytimeAStar(null);
+    }
+
+    // how much longer than the shortest path the last anytime A* path can be (1.0 means it is the shortest)
+    public double getSuboptimalityBound() { return anytimeBound; }
+    
+    // takes a path found by one of the engines that work on cell indices (row * cols + col)
+    // and marks it like our own searches do: visited flags, parent links and the counter tile effects
+    private void acceptPath(int[] path) {
+        int cols = maze[0].length;
+        Tile previous = null;
+        for (int cell : path) {
+            Tile tile = maze[cell / cols][cell % cols];
+            tile.setVisited(true);
+            if (previous != null) parents.set(tile, previous);
+            if (tile.isCounterUp()) counter.value += 50;
+            if (tile.isCounterDown()) counter.value -= 50;
+            previous = tile;
+        }
+        reachedEnd = previous;
+    }
+    
+    // changes the type of a tile (for example opening or closing a wall) and updates everything cached about the maze
+    public void updateTile(int row, int col, TileType type) {
+        Tile tile = maze[row][col];
+        boolean movesEndpoint = tile.isStart() || tile.isEnd() || type == TileType.START || type == TileType.END;
+        tile.setType(type);
+
+        if (movesEndpoint) {
+            start = null;
+            end = null;
+            locateStartAndEnd();
+        }
+        if (hierarchy != null) {
+            hierarchy.invalidate(row, col);
+        }
+        components = null;
+        distanceField = null;
+        features = null;
+        if (bitboard != null) {
+            bitboard.setOpen(row, col, type != TileType.WALL);
+        }
+        if (chokepoints != null) {
+            chokepoints.invalidate();
+        }
+    }
+    
+    // BFS on bitboards, 64 cells per operation instead of one tile at a time. finds the same shortest
+    // path lengths as BFS() to the closest end, but doesn't visit tiles one by one (no animation)
+    public boolean bitboardBFS() {
+        resetMaze();
+
+        if (bitboard == null) {
+            bitboard = new BitboardBfs(maze);
+        }
+        int cols = maze[0].length;
+        int[] goals = new int[ends.size()];
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = ends.get(i).getRow() * cols + ends.get(i).getCol();
+        }
+        int[] path = bitboard.findPathToAny(start.getRow(), start.getCol(), goals, total -> {
+            stopReason = budget.check(total);
+            return stopReason != null;
+        });
+        expansions = bitboard.getExpansions();
+        counter.value = (int) expansions;
+
+        if (path == null) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        acceptPath(path);
+        System.out.println("Reached the end! Final counter: " + counter.value);
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return true;
+    }
+    
+    // keeps one hand on the wall, needs no memory besides the path it walked. only finds the end if it is on
+    // the same wall as the start, otherwise the walk comes back around to the start and gives up
+    public boolean wallFollower(boolean leftHand) {
+        MazeWalker walker = new MazeWalker(maze);
+        return walked(walker, runPathEngine(() -> walker.followWall(start, leftHand, this::step)));
+    }
+    
+    // Pledge's algorithm: heads for the end and follows walls only to get around them, so walls standing
+    // on their own don't trap it like they trap the wall follower
+    public boolean pledge() {
+        MazeWalker walker = new MazeWalker(maze);
+        return walked(walker, runPathEngine(() -> walker.pledge(start, end, this::step)));
+    }
+    
+    // a walker that gave up hasn't shown there is no path, that is GAVE_UP and not NO_PATH
+    private boolean walked(MazeWalker walker, boolean found) {
+        if (!found && stopReason == null && walker.hasGivenUp()) {
+            stopReason = SolveResult.StopReason.GAVE_UP;
+        }
+        return found;
+    }
+    
+    // Tremaux's algorithm: marks every passage it walks through (2 bits each) and never walks one a third time,
+    // always finds a path if there is one (not the shortest) and knows when there is none
+    public boolean tremaux() {
+        return runPathEngine(() -> new MazeWalker(maze).tremaux(start, end, this::step));
+    }
+    
+    // iterative deepening A*: the same path length as AStar() with the same heuristic, but only keeps the branch it
+    // is on and a fixed size table of tiles it has seen, so it runs in mazes where A* runs out of memory. it searches
+    // everything under the threshold again for every new threshold, that is the price for the memory
+    public boolean idaStar() {
+        return runPathEngine(() -> new MemoryBoundedSearch(maze).idaStar(start, tile -> (int) heuristic(tile, end), this::step));
+    }
+    
+    // fringe search: the thresholds of IDA* without starting over, keeps 5 bytes per tile instead of A*'s maps
+    public boolean fringeSearch() {
+        return runPathEngine(() -> new MemoryBoundedSearch(maze).fringe(start, tile -> (int) heuristic(tile, end), this::step));
+    }
+    
+    // beam search: only the beamWidth best tiles of every layer go on, so the frontier has a fixed size whatever
+    // the maze. the path is usually a bit longer than the shortest. if the beam runs dry although the end can be
+    // reached, the beam dropped the way there: the search stops with BEAM_PRUNED, or is widened and run again
+    // when retries are set. the expansions of all the runs count against one budget
+    public boolean beamSearch() {
+        resetMaze();
+
+        // reject right away if the end is in a part of the maze we can't get to, after this a beam
+        // that runs dry can only have dropped the way
+        if (!endReachable()) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        int width = beamWidth;
+        for (int attempt = 0; ; attempt++) {
+            BeamSearch beam = new BeamSearch(maze, width);
+            int[] path = beam.findPath(start, tile -> (int) heuristic(tile, end), this::step);
+            if (path != null) {
+                acceptPath(path);
+                System.out.println("Reached the end! Final counter: " + counter.value);
+                if (ui != null) {
+                    ui.updateCounter(counter.value);
+                    ui.updateUI();
+                }
+                return true;
+            }
+            if (stopReason != null || !beam.isPruned()) {
+                System.out.println("No path found.");
+                return false;
+            }
+            System.out.println("The beam of width " + beam.getWidth() + " dropped the way to the end ("
+                    + beam.getDropped() + " tiles left out)");
+            // a beam as wide as the maze drops nothing, so widening always ends
+            if (attempt == beamRetries) {
+                stopReason = SolveResult.StopReason.BEAM_PRUNED;
+                return false;
+            }
+            width = (int) Math.min(Integer.MAX_VALUE / 4, (long) beam.getWidth() * BEAM_WIDENING);
+        }
+    }
+    
+    // runs an engine that is plugged in through META-INF/services/SolverEngine
+    public boolean runEngine(SolverEngine engine) {
+        return runPathEngine(() -> engine.findPath(maze, start, ends, this::step));
+    }
+    
+    // runs a search that reports its expansions through step() and hands back the path as cell indices.
+    // there is no reachability check up front: the walkers keep no search state per tile and the component
+    // labels would cost more memory than the walk itself, they find out by walking
+    private boolean runPathEngine(Supplier<int[]> search) {
+        resetMaze();
+
+        int[] path = search.get();
+        if (path == null) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        acceptPath(path);
+        System.out.println("Reached the end! Final counter: " + counter.value);
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return true;
+    }
+    
+    // every step of a walker (or expansion of a plugged in engine) counts like an expansion of our own searches
+    private boolean step(Tile current) {
+        current.setVisited(true);
+        counter.value++;
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return current.isEnd() || !outOfBudget(current);
+    }
+    
+    // finds the tiles every path from the start to the end has to go through and searches the pieces of maze
+    // between them in parallel. same path length as BFS(), aims for the end A* aims for if it can be reached
+    // (otherwise the first end that can). no animation, the pieces are searched by several threads at once
+    public boolean chokepointSegments() {
+        resetMaze();
+
+        if (chokepoints == null) {
+            chokepoints = new Chokepoints(maze);
+        }
+        int cols = maze[0].length;
+        int[] goals = new int[ends.size()];
+        goals[0] = end.getRow() * cols + end.getCol();
+        int next = 1;
+        for (Tile goal : ends) {
+            if (goal != end) goals[next++] = goal.getRow() * cols + goal.getCol();
+        }
+        // asked by one piece at a time, see Chokepoints.findPath
+        int[] path = chokepoints.findPath(start.getRow(), start.getCol(), goals, total -> {
+            stopReason = budget.check(total);
+            return stopReason != null;
+        });
+        expansions = chokepoints.getExpansions();
+        counter.value = (int) expansions;
+
+        if (path == null) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        System.out.println(chokepoints.getChokepoints().length + " chokepoints on the way, searched as "
+                + chokepoints.getPieces() + " pieces (" + chokepoints.getArticulationPoints() + " articulation points and "
+                + chokepoints.getBlocks() + " biconnected components in the maze)");
+        acceptPath(path);
+        System.out.println("Reached the end! Final counter: " + counter.value);
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return true;
+    }
+    
+    // follows the distance field from the start to the closest end, the field is built (one reverse BFS
+    // from all the ends) the first time, after that every call only walks the path. the build counts as one
+    // expansion per tile and the budget can stop it, a half built field is thrown away
+    public boolean followDistanceField() {
+        resetMaze();
+
+        long built = 0;
+        if (distanceField == null) {
+            distanceField = DistanceField.build(maze, total -> {
+                expansions = total;
+                stopReason = budget.check(total);
+                return stopReason != null;
+            });
+            if (distanceField == null) {
+                System.out.println("No path found.");
+                return false;
+            }
+            built = distanceField.getSearchedTiles();
+        }
+
+        int[] path = distanceField.pathFrom(start.getRow(), start.getCol());
+        expansions = built + (path == null ? 0 : path.length);
+        if (path == null) {
+            System.out.println("No path found.");
+            return false;
+        }
+
+        counter.value = path.length - 1;
+        acceptPath(path);
+        System.out.println("Reached the end! Final counter: " + counter.value);
+        if (ui != null) {
+            ui.updateCounter(counter.value);
+            ui.updateUI();
+        }
+        return true;
+    }
+    
+    // the shortest path from any tile to its closest end, without touching the state of the last search
+    // returns null if no end can be reached from there
+    public List<Tile> pathFrom(Tile from) {
+        int[] path = getDistanceField().pathFrom(from.getRow(), from.getCol());
+        if (path == null) return null;
+        int cols = maze[0].length;
+        List<Tile> tiles = new ArrayList<>(path.length);
+        for (int cell : path) {
+            tiles.add(maze[cell / cols][cell % cols]);
+        }
+        return tiles;
+    }
+    
+    public boolean hasDistanceField() {
+        return distanceField != null;
+    }
+    
+    public MazeFeatures getFeatures() {
+        if (features == null) {
+            features = new MazeFeatures(maze, start, ends);
+        }
+        return features;
+    }
+    
+    public DistanceField getDistanceField() {
+        if (distanceField == null) {
+            distanceField = new DistanceField(maze);
+        }
+        return distanceField;
+    }
+    
+    // keeps the distance field with the maze file, so the next run can skip the reverse BFS
+    public void saveDistanceField(String filename) throws IOException {
+        getDistanceField().write(filename);
+    }
+    
+    // uses a saved distance field, it is rejected if it was computed for a different maze
+    public void loadDistanceField(String filename) throws IOException {
+        distanceField = DistanceField.read(filename, maze);
+    }
+    
+    // true unless the end is in a region the start can never get to (no shared region and no teleport to jump with)
+    // the labels are computed on first use, after that every check is O(1). the budget's clock and cancel flag can
+    // stop the labeling (it isn't a search, so it doesn't count as expansions): then this is false and the
+    // search stops with the budget's reason
+    public boolean endReachable() {
+        if (components == null) {
+            components = ConnectedComponents.label(maze, () -> {
+                stopReason = budget.check(expansions);
+                return stopReason != null;
+            });
+            if (components == null) return false;
+        }
+        for (Tile goal : ends) {
+            if (components.canReach(start, goal)) return true;
+        }
+        return false;
+    }
+    
+    // runs an algorithm by its name (one of SolverEngines.names(), the built-in ones are matched the same loose way
+    // the UI always did)
+    public boolean solve(String algorithm) {
+        if (algorithm.equals(SolverEngines.AUTO)) {
+            return solveAuto();
+        }
+        MazeEvents.Solve event = new MazeEvents.Solve();
+        event.begin();
+        String outcome = null;
+        try {
+            boolean found = runAlgorithm(algorithm);
+            outcome = outcome(found).name();
+            return found;
+        } catch (RuntimeException | Error e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.algorithm = algorithm;
+                event.rows = maze.length;
+                event.cols = maze[0].length;
+                event.expansions = expansions;
+                event.counter = counter.value;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+    
+    // how the last search ended
+    private SolveResult.StopReason outcome(boolean found) {
+        return found ? SolveResult.StopReason.FOUND : stopReason != null ? stopReason : SolveResult.StopReason.NO_PATH;
+    }
+    
+    // lets AutoSelector pick an algorithm for this maze, runs it and logs how the choice worked out
+    private boolean solveAuto() {
+        AutoSelector.Choice choice = AutoSelector.choose(this);
+        System.out.println("Auto: " + choice);
+        long startTime = System.nanoTime();
+        boolean found = solve(choice.getAlgorithm());
+        AutoSelector.log(choice, outcome(found), expansions, (System.nanoTime() - startTime) / 1_000_000);
+        return found;
+    }
+    
+    private boolean runAlgorithm(String algorithm) {
+        boolean found;
+        // plugged in engines go first, their names are matched exactly so they can't be mistaken for a built-in one
+        SolverEngine engine = SolverEngines.find(algorithm);
+        if (engine != null) {
+            found = runEngine(engine);
+        } else if (algorithm.contains("HPA")) {
+            found = hierarchicalAStar();
+        } else if (algorithm.contains("ARA")) {
+            found = anytimeAStar();
+        } else if (algorithm.contains("IDA*")) {
+            found = idaStar();
+        } else if (algorithm.contains("Fringe")) {
+            found = fringeSearch();
+        } else if (algorithm.contains("Beam")) {
+            found = beamSearch();
+        } else if (algorithm.contains("Distance Field")) {
+            found = followDistanceField();
+        } else if (algorithm.contains("Bitboard")) {
+            found = bitboardBFS();
+        } else if (algorithm.contains("Chokepoint")) {
+            found = chokepointSegments();
+        } else if (algorithm.contains("left hand")) {
+            found = wallFollower(true);
+        } else if (algorithm.contains("right hand")) {
+            found = wallFollower(false);
+        } else if (algorithm.contains("Pledge")) {
+            found = pledge();
+        } else if (algorithm.contains("Tremaux")) {
+            found = tremaux();
+        } else if (algorithm.contains("DFS")) {
+            found = DFS();
+        } else if (algorithm.contains("BFS")) {
+            found = BFS();
+        } else if (algorithm.contains("A*")) {
+            found = AStar();
+        } else if (algorithm.contains("Dijkstra")) {
+            found = Dijkstra();
+        } else if (algorithm.contains("Greedy")) {
+            found = greedyBestFirst();
+        } else if (algorithm.contains("Dead End")) {
+            found = deadEndFill();
+        } else {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+
+        // finish the recording with the path so a replay can show it too
+        if (trace != null) {
+            trace.setAlgorithm(algorithm);
+            if (found) trace.recordPath(pathIterator(reachedEnd));
+        }
+        return found;
+    }
+    
+    // runs an algorithm under a budget and reports how it went
+    // if the budget runs out the search stops where it is and the result carries the closest tile it got to
+    // synchronized because all searches share the tiles, a new one waits until a cancelled one has unwound
+    public synchronized SolveResult solve(String algorithm, SearchBudget budget) {
+        this.budget = budget;
+        budget.start();
+        long startTime = System.nanoTime();
+        try {
+            boolean found = solve(algorithm);
+            return new SolveResult(algorithm, outcome(found), expansions, counter.value,
+                    (System.nanoTime() - startTime) / 1_000_000, found ? reachedEnd : partialBest());
+        } finally {
+            this.budget = SearchBudget.unlimited();
+        }
+    }
+    
+    // same as solve(algorithm, budget) but on its own thread, so the caller gets a future right away
+    // cancelling the budget stops the search at its next check and completes the future with a partial result.
+    // cancelling the future also stops the search, but the future stays cancelled and that result is dropped
+    // the thread gets a big stack because DFS recurses once per tile on its path
+    public CompletableFuture<SolveResult> solveAsync(String algorithm, SearchBudget budget) {
+        CompletableFuture<SolveResult> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) budget.cancel();
+        });
+
+        Thread worker = new Thread(null, () -> {
+            try {
+                future.complete(solve(algorithm, budget));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, "maze-solver", 512L * 1024 * 1024);
+        worker.setDaemon(true);
+        worker.start();
+        return future;
+    }
+    
+    // counts an expansion, remembers the tile closest to the end and checks the budget
+    // returns true if the search has to stop now
+    private boolean outOfBudget(Tile current) {
+        // DFS keeps calling in here while it unwinds, those calls don't count as new expansions
+        if (stopReason != null) return true;
+        expansions++;
+        if (trace != null) trace.record(SearchTrace.EXPANDED, current.getRow(), current.getCol());
+        if (bestTile == null || heuristic(current, end) < heuristic(bestTile, end)) {
+            bestTile = current;
+        }
+        stopReason = budget.check(expansions);
+        return stopReason != null;
+    }
+    
+    // the closest tile of a search that stopped early, if reconstructPath can get back from it to the start.
+    // the engines that only hand back a finished path (walkers, IDA*, Fringe, beam, plug-ins) leave no parent
+    // links on the way, their closest tile is left out
+    private Tile partialBest() {
+        if (bestTile == null || bestTile == start || parents.parentOf(bestTile, maze) != null) return bestTile;
+        return null;
+    }
+    
+    // budget check for loops that don't expand tiles (like the dead end scan)
+    private boolean budgetExceeded() {
+        stopReason = budget.check(expansions);
+        return stopReason != null;
+    }
+    
     // Helper method to reset maze state
     private void resetMaze() {
+        MazeEvents.Reset event = new MazeEvents.Reset();
+        event.begin();
         for (Tile[] row : maze) {
             for (Tile tile : row) {
                 tile.setVisited(false);
-                tile.setParent(null);
             }
         }
+        parents.clear();
         counter.value = 0;
+        expansions = 0;
+        bestTile = null;
+        stopReason = null;
+        reachedEnd = null;
+        random.setSeed(seed);
+        trace = recordTrace ? new SearchTrace(maze.length, maze[0].length, seed) : null;
+        event.rows = maze.length;
+        event.cols = maze[0].length;
+        event.commit();
     }
     
     
-    // this method backtracks from end to finish using the parent tiles to return the shortest path we found
+    // this method backtracks from end to finish using the parent links to return the shortest path we found
     public List<Tile> reconstructPath(Tile end) {
         List<Tile> path = new ArrayList<>();
-        Tile current = end;
-        while (current != null) {
-            path.add(current);
-            current = current.getParent();
-        }
-        Collections.reverse(path);
+        pathIterator(end).forEachRemaining(path::add);
         return path;
     }
     
+    // streams the path from the start to the given tile one tile at a time, without building a list
+    // (the moves are kept packed at 2 bits per step while we go)
+    public Iterator<Tile> pathIterator(Tile end) {
+        return parents.movesBetween(start, end).cells(maze);
+    }
+    
+    // writes the path to the given tile as run length moves like "D12 R3 J5,7 L2" (J is a teleport to row,col)
+    public void writePathRunLength(Tile end, Appendable out) throws java.io.IOException {
+        parents.movesBetween(start, end).writeRunLength(out);
+    }
+    
+    // the tile we reached the given tile from, null for the start and tiles the last search didn't reach
+    public Tile getParent(Tile tile) {
+        return parents.parentOf(tile, maze);
+    }
+    
     // Getters
+    // the seed for teleport destinations, replaying a trace sets it to the trace's seed
+    public void setSeed(long seed) { this.seed = seed; }
+    public long getSeed() { return seed; }
+    
+    // turns recording of the next searches on or off, getTrace() gives the recording of the last one
+    public void setTraceRecording(boolean recordTrace) { this.recordTrace = recordTrace; }
+    
+    // how many tiles a layer of beam search keeps, setBeamMemory picks the widest beam that fits into the bytes
+    public void setBeamWidth(int width) {
+        if (width < 1) throw new IllegalArgumentException("The beam has to be at least 1 wide.");
+        this.beamWidth = width;
+    }
+    public void setBeamMemory(long bytes) { this.beamWidth = BeamSearch.widthFor(bytes); }
+    public int getBeamWidth() { return beamWidth; }
+    // how many times a beam that dropped the way to the end is widened and run again
+    public void setBeamRetries(int retries) { this.beamRetries = Math.max(0, retries); }
+    public SearchTrace getTrace() { return trace; }
+    
     public Counter getCounter() {
         return counter;
     }
@@ -679,4 +1434,14 @@ public class MazeSolver {
     public Tile getEnd() {
         return end;
     }
-}
\ No newline at end of file
+    
+    // all the end tiles, more than one only if the maze was loaded with multiple ends allowed
+    public List<Tile> getEnds() {
+        return Collections.unmodifiableList(ends);
+    }
+    
+    // the end tile the last successful search got to, null if it didn't get to one
+    public Tile getReachedEnd() {
+        return reachedEnd;
+    }
+}
\ No newline at end of file
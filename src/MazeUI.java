@@ -5,18 +5,35 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MazeUI extends JFrame {
     
     // UI Components
     private JPanel gridPanel;
     private JPanel controlPanel;
-    private JPanel[][] gridPanels;
+    private MazeViewport viewport; // Draws only the visible part of the maze, so any size works
+    private JScrollPane scrollPane;
+    private MazeViewport.Minimap minimap;
+    private JButton zoomInButton;
+    private JButton zoomOutButton;
+    private JButton fitButton;
     private JLabel counterLabel;
     private JComboBox<String> algorithmDropdown;
     private JButton loadMazeButton;
     private JButton startButton;
+    private JButton cancelButton;
+    
+    // Trace recording and replay controls
+    private JCheckBox recordTraceBox;
+    private JButton saveTraceButton;
+    private JButton loadTraceButton;
+    private JButton compareTraceButton;
+    private JButton playButton;
+    private JSlider replaySlider;
+    private JSlider speedSlider;
     
     // Maze data
     private Tile[][] maze;
@@ -24,18 +41,28 @@ public class MazeUI extends JFrame {
     private Counter counter ;
     private boolean mazeLoaded;
     private boolean[][] deadEndTiles; // Track dead end tiles for visualization
+    private final BitSet finalPathTiles = new BitSet(); // Cells (row * cols + col) of the final path
+    private final AtomicBoolean refreshPending = new AtomicBoolean(); // A repaint is already queued
+    private SearchBudget runningBudget; // Budget of the running algorithm, cancelling it stops the search
+    private SearchTrace replayTrace; // Trace being replayed, null while the grid shows the solver itself
+    private int replayPosition; // Number of trace events shown so far
+    private Timer replayTimer;
+    
+    // Colors for different tile states, MazeRenderer draws its images with the same ones
+    static final Color WALL_COLOR = Color.BLACK;
+    static final Color EMPTY_COLOR = Color.WHITE;
+    static final Color START_COLOR = Color.GREEN;
+    static final Color END_COLOR = Color.RED;
+    static final Color TELEPORT_COLOR = Color.BLUE;
+    static final Color COUNTER_UP_COLOR = new Color(100, 0, 0);
+    static final Color COUNTER_DOWN_COLOR = new Color(0, 100, 0); // Dark green
+    static final Color EXPLORED_COLOR = Color.YELLOW;
+    static final Color FINAL_PATH_COLOR = Color.GREEN;
+    static final Color DEAD_END_COLOR = Color.PINK; // New color for dead end tiles
     
-    // Colors for different tile states
-    private static final Color WALL_COLOR = Color.BLACK;
-    private static final Color EMPTY_COLOR = Color.WHITE;
-    private static final Color START_COLOR = Color.GREEN;
-    private static final Color END_COLOR = Color.RED;
-    private static final Color TELEPORT_COLOR = Color.BLUE;
-    private static final Color COUNTER_UP_COLOR = new Color(100, 0, 0);
-    private static final Color COUNTER_DOWN_COLOR = new Color(0, 100, 0); // Dark green
-    private static final Color EXPLORED_COLOR = Color.YELLOW;
-    private static final Color FINAL_PATH_COLOR = Color.GREEN;
-    private static final Color DEAD_END_COLOR = Color.PINK; // New color for dead end tiles
+    // Largest cell size we zoom to when fitting a maze, and up to how many cells we slow the solver down to animate
+    private static final double MAX_CELL_SIZE = 25;
+    private static final int ANIMATED_CELLS = 10_000;
     
     public MazeUI() {
         this.counter = new Counter(0);
@@ -61,10 +88,20 @@ public class MazeUI extends JFrame {
     }
     
     private void initializeComponents() {
-        // Grid panel - initially empty
-        gridPanel = new JPanel();
+        // Grid panel - a scrollable, zoomable view of the maze (ctrl + mouse wheel zooms around the mouse)
+        gridPanel = new JPanel(new BorderLayout());
         gridPanel.setBorder(BorderFactory.createTitledBorder("Maze Grid"));
         gridPanel.setPreferredSize(new Dimension(600, 400));
+        viewport = new MazeViewport(this::cellColor);
+        scrollPane = new JScrollPane(viewport);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        gridPanel.add(scrollPane, BorderLayout.CENTER);
+        minimap = new MazeViewport.Minimap(viewport);
+        minimap.setAlignmentX(Component.LEFT_ALIGNMENT);
+        zoomInButton = new JButton("+");
+        zoomOutButton = new JButton("-");
+        fitButton = new JButton("Fit");
         
         // Control panel
         controlPanel = new JPanel();
@@ -76,21 +113,29 @@ public class MazeUI extends JFrame {
         counterLabel = new JLabel("Counter: 0");
         counterLabel.setFont(new Font("Arial", Font.BOLD, 16));
         
-        // Algorithm dropdown - now includes all algorithms from MazeSolver
-        String[] algorithms = {
-            "Depth-First Search (DFS)", 
-            "Breadth-First Search (BFS)", 
-            "A* Search",
-            "Dijkstra's Algorithm",
-            "Greedy Best-First Search",
-            "Dead End Fill"
-        };
+        // Algorithm dropdown - the built-in algorithms, the plugged in engines and Auto
+        String[] algorithms = SolverEngines.names();
         algorithmDropdown = new JComboBox<>(algorithms);
         
         // Buttons
         loadMazeButton = new JButton("Load Maze");
         startButton = new JButton("Start Algorithm");
         startButton.setEnabled(false); // Disabled until maze is loaded
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false); // Only enabled while an algorithm runs
+        
+        // Replay controls, the slider scrubs through the events of the trace and the speed is events per tick
+        recordTraceBox = new JCheckBox("Record trace");
+        saveTraceButton = new JButton("Save Trace");
+        saveTraceButton.setEnabled(false); // Enabled once a recorded run finished
+        loadTraceButton = new JButton("Load Trace");
+        compareTraceButton = new JButton("Compare Trace");
+        playButton = new JButton("Play");
+        playButton.setEnabled(false);
+        replaySlider = new JSlider(0, 0, 0);
+        replaySlider.setEnabled(false);
+        speedSlider = new JSlider(1, 200, 10);
+        replayTimer = new Timer(30, e -> advanceReplay());
     }
     
     private void setupLayout() {
@@ -103,6 +148,9 @@ public class MazeUI extends JFrame {
         controlPanel.add(counterLabel);
         controlPanel.add(Box.createVerticalStrut(20));
         
+        controlPanel.add(createViewPanel());
+        controlPanel.add(Box.createVerticalStrut(20));
+        
         controlPanel.add(new JLabel("Algorithm:"));
         controlPanel.add(algorithmDropdown);
         controlPanel.add(Box.createVerticalStrut(20));
@@ -110,6 +158,11 @@ public class MazeUI extends JFrame {
         controlPanel.add(loadMazeButton);
         controlPanel.add(Box.createVerticalStrut(10));
         controlPanel.add(startButton);
+        controlPanel.add(Box.createVerticalStrut(10));
+        controlPanel.add(cancelButton);
+        controlPanel.add(Box.createVerticalStrut(20));
+        
+        controlPanel.add(createReplayPanel());
         controlPanel.add(Box.createVerticalStrut(20));
         
         // Add legend
@@ -138,6 +191,37 @@ public class MazeUI extends JFrame {
         return legend;
     }
     
+    private JPanel createViewPanel() {
+        JPanel view = new JPanel(new BorderLayout());
+        view.setBorder(BorderFactory.createTitledBorder("View"));
+        
+        JPanel zoomButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        zoomButtons.add(zoomOutButton);
+        zoomButtons.add(zoomInButton);
+        zoomButtons.add(fitButton);
+        view.add(zoomButtons, BorderLayout.NORTH);
+        view.add(minimap, BorderLayout.CENTER);
+        
+        return view;
+    }
+    
+    private JPanel createReplayPanel() {
+        JPanel replay = new JPanel();
+        replay.setLayout(new BoxLayout(replay, BoxLayout.Y_AXIS));
+        replay.setBorder(BorderFactory.createTitledBorder("Replay"));
+        
+        replay.add(recordTraceBox);
+        replay.add(saveTraceButton);
+        replay.add(loadTraceButton);
+        replay.add(compareTraceButton);
+        replay.add(playButton);
+        replay.add(replaySlider);
+        replay.add(new JLabel("Speed:"));
+        replay.add(speedSlider);
+        
+        return replay;
+    }
+    
     private JPanel createLegendItem(String text, Color color) {
         JPanel item = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JLabel colorBox = new JLabel("  ");
@@ -163,25 +247,84 @@ public class MazeUI extends JFrame {
                 startAlgorithm();
             }
         });
+        
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (runningBudget != null) {
+                    runningBudget.cancel();
+                }
+            }
+        });
+        
+        // Zooming, the buttons zoom around the middle of the view
+        zoomInButton.addActionListener(e -> zoomAroundCenter(1.5));
+        zoomOutButton.addActionListener(e -> zoomAroundCenter(1 / 1.5));
+        fitButton.addActionListener(e -> viewport.zoomToFit(scrollPane.getViewport().getExtentSize(), MAX_CELL_SIZE));
+        scrollPane.addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                Point anchor = SwingUtilities.convertPoint(e.getComponent(), e.getPoint(), scrollPane.getViewport());
+                viewport.setZoom(viewport.getZoom() * Math.pow(1.25, -e.getPreciseWheelRotation()), anchor);
+                e.consume();
+            }
+        });
+        scrollPane.setWheelScrollingEnabled(true);
+        scrollPane.getViewport().addChangeListener(e -> minimap.repaint());
+        
+        recordTraceBox.addActionListener(e -> {
+            if (solver != null) {
+                solver.setTraceRecording(recordTraceBox.isSelected());
+            }
+        });
+        saveTraceButton.addActionListener(e -> saveTrace());
+        loadTraceButton.addActionListener(e -> loadTrace());
+        compareTraceButton.addActionListener(e -> compareTrace());
+        playButton.addActionListener(e -> togglePlayback());
+        replaySlider.addChangeListener(e -> {
+            if (replayTrace != null && replaySlider.getValue() != replayPosition) {
+                replayPosition = replaySlider.getValue();
+                refreshGrid();
+            }
+        });
     }
     
     private void loadMaze() {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileFilter(new FileNameExtensionFilter("Text files", "txt"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Maze files (txt, mzb)", "txt", "mzb"));
         
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
             try {
-                // Load maze using your existing classes
-                MazeLoader loader = new MazeLoader();
-                char[][] charMaze = loader.load(selectedFile.getAbsolutePath());
-                maze = Tile.convertToTiles(charMaze);
+                // Load maze using your existing classes (binary .mzb files skip the text parsing entirely)
+                String path = selectedFile.getAbsolutePath();
+                if (CompactMaze.isCompactFile(path)) {
+                    maze = CompactMaze.read(path).toTiles();
+                } else {
+                    MazeLoader loader = new MazeLoader(true); // any number of B tiles, the closest one reached wins
+                    char[][] charMaze = loader.load(path);
+                    maze = Tile.convertToTiles(charMaze);
+                }
                 
                 // Create solver and set UI reference
+                stopReplay();
                 solver = new MazeSolver(maze);
                 counter = solver.getCounter();
                 solver.setUI(this);
+                solver.setTraceRecording(recordTraceBox.isSelected());
+                
+                // A distance field saved next to the maze spares us the reverse BFS (a stale one is just ignored)
+                File fieldFile = new File(DistanceField.fileFor(path));
+                if (fieldFile.exists()) {
+                    try {
+                        solver.loadDistanceField(fieldFile.getPath());
+                    } catch (IOException | IllegalArgumentException ex) {
+                        System.out.println("Ignoring distance field: " + ex.getMessage());
+                    }
+                }
+                
+                saveTraceButton.setEnabled(false);
+                playButton.setEnabled(false);
                 
                 // Setup grid display
                 setupGrid();
@@ -199,42 +342,47 @@ public class MazeUI extends JFrame {
     }
     
     private void setupGrid() {
-        gridPanel.removeAll();
-        
-        int rows = maze.length;
-        int cols = maze[0].length;
-        
-        gridPanel.setLayout(new GridLayout(rows, cols, 1, 1));
-        gridPanels = new JPanel[rows][cols];
-        
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                JPanel panel = new JPanel();
-                panel.setPreferredSize(new Dimension(25, 25));
-                panel.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-                panel.setOpaque(true);
-                
-                // Set initial color based on tile type
-                setTileColor(panel, maze[i][j]);
-                
-                gridPanels[i][j] = panel;
-                gridPanel.add(panel);
-            }
-        }
+        finalPathTiles.clear();
+        viewport.setMaze(maze.length, maze[0].length);
         
+        // Start with the whole maze in view, small mazes keep their old 25 pixel cells
+        viewport.zoomToFit(scrollPane.getViewport().getExtentSize(), MAX_CELL_SIZE);
         gridPanel.revalidate();
         gridPanel.repaint();
-        pack();
+        minimap.repaint();
+    }
+    
+    private void zoomAroundCenter(double factor) {
+        Dimension extent = scrollPane.getViewport().getExtentSize();
+        viewport.setZoom(viewport.getZoom() * factor, new Point(extent.width / 2, extent.height / 2));
     }
     
-    private void setTileColor(JPanel panel, Tile tile) {
+    // the color a cell is drawn with right now, the viewport asks for the visible cells only
+    Color cellColor(int row, int col) {
+        Tile tile = maze[row][col];
+        
+        // While replaying, the trace alone decides what the tile looks like
+        if (replayTrace != null && !tile.isStart() && !tile.isEnd()) {
+            int state = replayTrace.stateAt(tile.getRow(), tile.getCol(), replayPosition);
+            if (state == SearchTrace.PATH) {
+                return FINAL_PATH_COLOR;
+            } else if (state == SearchTrace.DEAD_END) {
+                return DEAD_END_COLOR;
+            } else if (state == SearchTrace.EXPANDED) {
+                return EXPLORED_COLOR;
+            }
+        }
+        
         Color color;
         
+        // Check if this tile is on the final path
+        if (replayTrace == null && !tile.isStart() && !tile.isEnd() && finalPathTiles.get(row * maze[0].length + col)) {
+            color = FINAL_PATH_COLOR;
         // Check if this tile is marked as a dead end
-        if (deadEndTiles != null && deadEndTiles[tile.getRow()][tile.getCol()] && 
+        } else if (replayTrace == null && deadEndTiles != null && deadEndTiles[tile.getRow()][tile.getCol()] && 
             !tile.isStart() && !tile.isEnd() && !tile.isWall()) {
             color = DEAD_END_COLOR;
-        } else if (tile.isVisited() && !tile.isStart() && !tile.isEnd()) {
+        } else if (replayTrace == null && tile.isVisited() && !tile.isStart() && !tile.isEnd()) {
             color = EXPLORED_COLOR;
         } else {
             switch (tile.getType()) {
@@ -261,28 +409,22 @@ public class MazeUI extends JFrame {
             }
         }
         
-        panel.setBackground(color);
+        return color;
     }
     
     public void updateUI() {
-        if (maze == null || gridPanels == null) return;
+        if (maze == null) return;
         
-        SwingUtilities.invokeLater(() -> {
-            // Update grid colors
-            for (int i = 0; i < maze.length; i++) {
-                for (int j = 0; j < maze[0].length; j++) {
-                    setTileColor(gridPanels[i][j], maze[i][j]);
-                }
-            }
-            
-            // Update counter
-            counterLabel.setText("Counter: " + counter.value);
-            
-            // Repaint
-            gridPanel.repaint();
-        });
+        // Only one repaint is queued at a time, the solver can call this far more often than the screen refreshes
+        if (refreshPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                refreshPending.set(false);
+                refreshGrid();
+            });
+        }
         
-        // Sleep to show progress
+        // Sleep to show progress (big mazes are not slowed down, they would take forever one step at a time)
+        if ((long) maze.length * maze[0].length > ANIMATED_CELLS) return;
         try {
             Thread.sleep(100); // Adjust delay as needed
         } catch (InterruptedException e) {
@@ -290,6 +432,22 @@ public class MazeUI extends JFrame {
         }
     }
     
+    // repaints the maze from the current state, must run on the UI thread
+    private void refreshGrid() {
+        if (maze == null) return;
+        
+        // Update counter (a replay shows how far into the trace we are instead)
+        if (replayTrace != null) {
+            counterLabel.setText("Event: " + replayPosition + " / " + replayTrace.size());
+        } else {
+            counterLabel.setText("Counter: " + counter.value);
+        }
+        
+        // Repaint, the viewport only asks for the colors of the cells that are visible
+        viewport.repaint();
+        minimap.repaint();
+    }
+    
     public void updateCounter(int newCounter) {
         counter.value = newCounter;
     }
@@ -297,12 +455,9 @@ public class MazeUI extends JFrame {
     public void highlightFinalPath(List<Tile> path) {
         SwingUtilities.invokeLater(() -> {
             for (Tile tile : path) {
-                if (!tile.isStart() && !tile.isEnd()) {
-                    JPanel panel = gridPanels[tile.getRow()][tile.getCol()];
-                    panel.setBackground(FINAL_PATH_COLOR);
-                }
+                finalPathTiles.set(tile.getRow() * maze[0].length + tile.getCol());
             }
-            gridPanel.repaint();
+            refreshGrid();
         });
         
         // Sleep to show the final path
@@ -320,94 +475,187 @@ public class MazeUI extends JFrame {
         }
         
         // Reset maze state
+        stopReplay();
         resetMaze();
         
         // Disable start button during execution
         startButton.setEnabled(false);
+        saveTraceButton.setEnabled(false);
+        playButton.setEnabled(false);
         
-        // Run algorithm in separate thread to avoid blocking UI
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                String selectedAlgorithm = (String) algorithmDropdown.getSelectedItem();
-                
-                boolean found = false;
-                
-                // Call the appropriate algorithm based on selection
-                if (selectedAlgorithm.contains("DFS")) {
-                    found = solver.DFS();
-                } else if (selectedAlgorithm.contains("BFS")) {
-                    found = solver.BFS();
-                } else if (selectedAlgorithm.contains("A*")) {
-                    found = solver.AStar();
-                } else if (selectedAlgorithm.contains("Dijkstra")) {
-                    found = solver.Dijkstra();
-                } else if (selectedAlgorithm.contains("Greedy")) {
-                    found = solver.greedyBestFirst();
-                } else if (selectedAlgorithm.contains("Dead End")) {
-                    found = solver.deadEndFill();
-                }
-                
-                return found;
+        cancelButton.setEnabled(true);
+        
+        // Run algorithm on the solver's own thread to avoid blocking UI, the cancel button stops it through the budget
+        String selectedAlgorithm = (String) algorithmDropdown.getSelectedItem();
+        runningBudget = SearchBudget.unlimited();
+        solver.solveAsync(selectedAlgorithm, runningBudget).whenComplete((result, error) -> {
+            if (error == null && result.isFound()) {
+                // Show final path (highlightFinalPath hands the painting to the UI thread and waits a bit)
+                highlightFinalPath(solver.reconstructPath(solver.getReachedEnd()));
             }
-            
-            @Override
-            protected void done() {
-                try {
-                    boolean found = get();
-                    if (found) {
-                        // Show final path
-                        List<Tile> path = solver.reconstructPath(findEndTile());
-                        highlightFinalPath(path);
-                        
-                        // Show success message with algorithm info
-                        String algorithm = (String) algorithmDropdown.getSelectedItem();
-                        String message = String.format("Path found using %s!\nSteps taken: %d\nPath length: %d", 
-                                                     algorithm, counter.value, path.size());
-                        JOptionPane.showMessageDialog(MazeUI.this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
-                    } else {
-                        String algorithm = (String) algorithmDropdown.getSelectedItem();
-                        String message = String.format("No path found using %s.\nSteps taken: %d", 
-                                                     algorithm, counter.value);
-                        JOptionPane.showMessageDialog(MazeUI.this, message, "No Path Found", JOptionPane.WARNING_MESSAGE);
-                    }
-                } catch (Exception e) {
-                    JOptionPane.showMessageDialog(MazeUI.this, "Error running algorithm: " + e.getMessage(), 
-                                                "Error", JOptionPane.ERROR_MESSAGE);
-                    e.printStackTrace();
-                }
-                
-                // Re-enable start button
-                startButton.setEnabled(true);
+            SwingUtilities.invokeLater(() -> showResult(selectedAlgorithm, result, error));
+        });
+    }
+    
+    private void showResult(String algorithm, SolveResult result, Throwable error) {
+        if (error != null) {
+            JOptionPane.showMessageDialog(MazeUI.this, "Error running algorithm: " + error.getMessage(), 
+                                        "Error", JOptionPane.ERROR_MESSAGE);
+            error.printStackTrace();
+        } else if (result.isFound()) {
+            // Show success message with algorithm info
+            int pathLength = solver.reconstructPath(solver.getReachedEnd()).size();
+            String message = String.format("Path found using %s!\nSteps taken: %d\nPath length: %d", 
+                                         algorithm, counter.value, pathLength);
+            JOptionPane.showMessageDialog(MazeUI.this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+        } else if (result.isPartial()) {
+            String message = String.format("%s stopped early (%s).\nSteps taken: %d\nTime: %d ms", 
+                                         algorithm, result.getStopReason(), counter.value, result.getElapsedMillis());
+            JOptionPane.showMessageDialog(MazeUI.this, message, "Stopped", JOptionPane.WARNING_MESSAGE);
+        } else {
+            String message = String.format("No path found using %s.\nSteps taken: %d", 
+                                         algorithm, counter.value);
+            JOptionPane.showMessageDialog(MazeUI.this, message, "No Path Found", JOptionPane.WARNING_MESSAGE);
+        }
+        
+        // Re-enable start button
+        startButton.setEnabled(true);
+        cancelButton.setEnabled(false);
+        
+        // A recorded run can be saved and replayed right away
+        boolean recorded = solver.getTrace() != null;
+        saveTraceButton.setEnabled(recorded);
+        playButton.setEnabled(recorded);
+    }
+    
+    private void saveTrace() {
+        SearchTrace trace = replayTrace != null ? replayTrace : solver == null ? null : solver.getTrace();
+        if (trace == null) {
+            JOptionPane.showMessageDialog(this, "Run an algorithm with 'Record trace' checked first!");
+            return;
+        }
+        
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Search traces (mzt)", "mzt"));
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            String path = fileChooser.getSelectedFile().getAbsolutePath();
+            if (!path.endsWith(".mzt")) path += ".mzt";
+            try {
+                trace.write(path);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Error saving trace: " + ex.getMessage(), 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
             }
-        };
+        }
+    }
+    
+    // asks for a trace file, returns null if the user cancelled or the file can't be read
+    private SearchTrace chooseTrace() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Search traces (mzt)", "mzt"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        try {
+            return SearchTrace.read(fileChooser.getSelectedFile().getAbsolutePath());
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Error loading trace: " + ex.getMessage(), 
+                                        "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+    
+    private void loadTrace() {
+        if (!mazeLoaded) {
+            JOptionPane.showMessageDialog(this, "Please load the maze of the trace first!");
+            return;
+        }
+        SearchTrace trace = chooseTrace();
+        if (trace == null) return;
+        if (trace.getRows() != maze.length || trace.getCols() != maze[0].length) {
+            JOptionPane.showMessageDialog(this, "This trace was recorded on a " + trace.getRows() + "x" + trace.getCols() 
+                                        + " maze, not on the loaded one.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         
-        worker.execute();
+        // Running the algorithm again with the trace's seed teleports the same way
+        solver.setSeed(trace.getSeed());
+        startReplay(trace);
+    }
+    
+    private void compareTrace() {
+        SearchTrace current = replayTrace != null ? replayTrace : solver == null ? null : solver.getTrace();
+        if (current == null) {
+            JOptionPane.showMessageDialog(this, "Load or record a trace to compare with first!");
+            return;
+        }
+        SearchTrace other = chooseTrace();
+        if (other == null) return;
+        JOptionPane.showMessageDialog(this, current.compare(other), "Trace Comparison", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    // shows a trace from its first event, nothing is searched again
+    private void startReplay(SearchTrace trace) {
+        replayTimer.stop();
+        replayTrace = trace;
+        replayPosition = 0;
+        replaySlider.setMaximum(trace.size());
+        replaySlider.setValue(0);
+        replaySlider.setEnabled(true);
+        playButton.setEnabled(true);
+        playButton.setText("Play");
+        saveTraceButton.setEnabled(true);
+        refreshGrid();
+    }
+    
+    // goes back to showing the solver's own state
+    private void stopReplay() {
+        replayTimer.stop();
+        playButton.setText("Play");
+        if (replayTrace == null) return;
+        replayTrace = null;
+        replaySlider.setEnabled(false);
+        refreshGrid();
+    }
+    
+    private void togglePlayback() {
+        if (replayTimer.isRunning()) {
+            replayTimer.stop();
+            playButton.setText("Play");
+            return;
+        }
+        // Play without a loaded trace replays the run that was just recorded
+        if (replayTrace == null) {
+            if (solver == null || solver.getTrace() == null) return;
+            startReplay(solver.getTrace());
+        } else if (replayPosition >= replayTrace.size()) {
+            replaySlider.setValue(0);
+        }
+        replayTimer.start();
+        playButton.setText("Pause");
+    }
+    
+    private void advanceReplay() {
+        int next = Math.min(replayTrace.size(), replayPosition + speedSlider.getValue());
+        replaySlider.setValue(next);
+        if (next >= replayTrace.size()) {
+            replayTimer.stop();
+            playButton.setText("Play");
+        }
     }
     
     private void resetMaze() {
         counter.value = 0;
         deadEndTiles = null; // Reset dead end tracking
+        finalPathTiles.clear();
         for (Tile[] row : maze) {
             for (Tile tile : row) {
                 tile.setVisited(false);
-                tile.setParent(null);
             }
         }
         updateUI();
     }
     
-    private Tile findEndTile() {
-        for (Tile[] row : maze) {
-            for (Tile tile : row) {
-                if (tile.isEnd()) {
-                    return tile;
-                }
-            }
-        }
-        return null;
-    }
-    
     // Method to mark dead end tiles for visualization
     public void markDeadEndTile(int row, int col) {
         if (deadEndTiles == null) {
@@ -427,4 +675,4 @@ public class MazeUI extends JFrame {
             new MazeUI();
         });
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,282 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// draws a maze of any size inside a scroll pane
+// only the cells inside the clip rectangle are painted, so the cost depends on the size of the window and
+// not on the maze. zoomed in every cell is a rectangle with a grid line around it; with small cells we write
+// the pixels into an image ourselves; and zoomed out below one pixel per cell, every pixel stands for a block
+// of cells and gets the color most of a few sampled cells of the block have
+public class MazeViewport extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    // where the colors come from, the viewport itself knows nothing about tiles
+    public interface CellColors {
+        Color colorAt(int row, int col);
+    }
+
+    public static final double MIN_ZOOM = 1.0 / 64;
+    public static final double MAX_ZOOM = 40;
+    // below this many pixels per cell we stop drawing grid lines
+    private static final double GRID_LINE_ZOOM = 6;
+    // cells sampled along each side of a block when one pixel covers many cells
+    private static final int LOD_SAMPLES = 3;
+
+    private final CellColors colors;
+    private int rows = 0;
+    private int cols = 0;
+    private double zoom = 25; // pixels per cell
+
+    public MazeViewport(CellColors colors) {
+        this.colors = colors;
+        setOpaque(true);
+    }
+
+    public void setMaze(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        revalidate();
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension((int) Math.ceil(cols * zoom), (int) Math.ceil(rows * zoom));
+    }
+
+    public double getZoom() { return zoom; }
+
+    // changes the zoom so the cell under anchor (in viewport coordinates) stays where it is on screen
+    public void setZoom(double newZoom, Point anchor) {
+        newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        JViewport viewport = getViewport();
+        if (viewport == null || anchor == null) {
+            zoom = newZoom;
+            revalidate();
+            repaint();
+            return;
+        }
+
+        Point view = viewport.getViewPosition();
+        double cellX = (view.x + anchor.x) / zoom;
+        double cellY = (view.y + anchor.y) / zoom;
+        zoom = newZoom;
+        setSize(getPreferredSize());
+        revalidate();
+        scrollTo((int) (cellX * zoom) - anchor.x, (int) (cellY * zoom) - anchor.y);
+        repaint();
+    }
+
+    // zooms so the whole maze fits into the given size, but never bigger than maxZoom
+    public void zoomToFit(Dimension size, double maxZoom) {
+        if (rows == 0 || cols == 0) return;
+        double fit = Math.min(size.getWidth() / cols, size.getHeight() / rows);
+        setZoom(Math.min(maxZoom, fit), null);
+    }
+
+    // centers the view on a cell
+    public void centerOn(double row, double col) {
+        JViewport viewport = getViewport();
+        if (viewport == null) return;
+        Dimension extent = viewport.getExtentSize();
+        scrollTo((int) (col * zoom) - extent.width / 2, (int) (row * zoom) - extent.height / 2);
+    }
+
+    private void scrollTo(int x, int y) {
+        JViewport viewport = getViewport();
+        Dimension extent = viewport.getExtentSize();
+        Dimension size = getPreferredSize();
+        x = Math.max(0, Math.min(x, size.width - extent.width));
+        y = Math.max(0, Math.min(y, size.height - extent.height));
+        viewport.setViewPosition(new Point(x, y));
+    }
+
+    private JViewport getViewport() {
+        return getParent() instanceof JViewport ? (JViewport) getParent() : null;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground() != null ? getBackground() : Color.GRAY);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (rows == 0 || cols == 0) return;
+
+        MazeEvents.Render event = new MazeEvents.Render();
+        event.begin();
+        if (zoom >= GRID_LINE_ZOOM) {
+            paintCells(g, clip);
+        } else {
+            paintPixels(g, clip);
+        }
+        event.rows = rows;
+        event.cols = cols;
+        event.zoom = zoom;
+        event.pixels = (long) clip.width * clip.height;
+        event.commit();
+    }
+
+    // one rectangle per visible cell
+    private void paintCells(Graphics g, Rectangle clip) {
+        int firstRow = Math.max(0, (int) (clip.y / zoom));
+        int lastRow = Math.min(rows - 1, (int) ((clip.y + clip.height) / zoom));
+        int firstCol = Math.max(0, (int) (clip.x / zoom));
+        int lastCol = Math.min(cols - 1, (int) ((clip.x + clip.width) / zoom));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = (int) (row * zoom);
+            int height = (int) ((row + 1) * zoom) - y;
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = (int) (col * zoom);
+                int width = (int) ((col + 1) * zoom) - x;
+                g.setColor(colors.colorAt(row, col));
+                g.fillRect(x, y, width, height);
+                g.setColor(Color.GRAY);
+                g.drawRect(x, y, width - 1, height - 1);
+            }
+        }
+    }
+
+    // small cells and blocks of cells, drawn pixel by pixel into an image and copied in one go
+    private void paintPixels(Graphics g, Rectangle clip) {
+        int width = Math.min(clip.width, (int) Math.ceil(cols * zoom) - clip.x);
+        int height = Math.min(clip.height, (int) Math.ceil(rows * zoom) - clip.y);
+        if (width <= 0 || height <= 0) return;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        if (zoom >= 1) {
+            // every cell covers a few pixels, so the colors of a row of cells are looked up once
+            // and then copied into every pixel row the cells cover
+            int firstCol = (int) (clip.x / zoom);
+            int[] cellOfPixel = new int[width];
+            for (int px = 0; px < width; px++) {
+                cellOfPixel[px] = Math.min(cols - 1, (int) ((clip.x + px) / zoom)) - firstCol;
+            }
+            int[] rowColors = new int[cellOfPixel[width - 1] + 1];
+            int colorsOfRow = -1;
+            for (int py = 0; py < height; py++) {
+                int row = Math.min(rows - 1, (int) ((clip.y + py) / zoom));
+                if (row != colorsOfRow) {
+                    for (int i = 0; i < rowColors.length; i++) {
+                        rowColors[i] = colors.colorAt(row, firstCol + i).getRGB();
+                    }
+                    colorsOfRow = row;
+                }
+                int offset = py * width;
+                for (int px = 0; px < width; px++) {
+                    pixels[offset + px] = rowColors[cellOfPixel[px]];
+                }
+            }
+        } else {
+            int[] samples = new int[LOD_SAMPLES * LOD_SAMPLES];
+            for (int py = 0; py < height; py++) {
+                int rowFrom = (int) ((clip.y + py) / zoom);
+                int rowTo = Math.min(rows, (int) ((clip.y + py + 1) / zoom));
+                for (int px = 0; px < width; px++) {
+                    int colFrom = (int) ((clip.x + px) / zoom);
+                    int colTo = Math.min(cols, (int) ((clip.x + px + 1) / zoom));
+                    pixels[py * width + px] = dominantColor(rowFrom, rowTo, colFrom, colTo, samples);
+                }
+            }
+        }
+        g.drawImage(image, clip.x, clip.y, null);
+    }
+
+    // the color most of the sampled cells of a block have
+    private int dominantColor(int rowFrom, int rowTo, int colFrom, int colTo, int[] samples) {
+        int count = 0;
+        int rowSteps = Math.min(LOD_SAMPLES, Math.max(1, rowTo - rowFrom));
+        int colSteps = Math.min(LOD_SAMPLES, Math.max(1, colTo - colFrom));
+        for (int i = 0; i < rowSteps; i++) {
+            int row = Math.min(rows - 1, rowFrom + (rowTo - rowFrom) * i / rowSteps);
+            for (int j = 0; j < colSteps; j++) {
+                int col = Math.min(cols - 1, colFrom + (colTo - colFrom) * j / colSteps);
+                samples[count++] = colors.colorAt(row, col).getRGB();
+            }
+        }
+
+        int best = samples[0];
+        int bestVotes = 0;
+        for (int i = 0; i < count; i++) {
+            int votes = 0;
+            for (int j = 0; j < count; j++) {
+                if (samples[j] == samples[i]) votes++;
+            }
+            if (votes > bestVotes) {
+                best = samples[i];
+                bestVotes = votes;
+            }
+        }
+        return best;
+    }
+
+    // a small picture of the whole maze with a frame around the part the viewport shows,
+    // clicking or dragging on it moves the viewport there
+    public static class Minimap extends JComponent {
+        private static final long serialVersionUID = 1L;
+
+        private final MazeViewport viewport;
+
+        public Minimap(MazeViewport viewport) {
+            this.viewport = viewport;
+            setPreferredSize(new Dimension(200, 150));
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) { jumpTo(e.getPoint()); }
+
+                @Override
+                public void mouseDragged(MouseEvent e) { jumpTo(e.getPoint()); }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+        }
+
+        // pixels per cell of the minimap
+        private double scale() {
+            return Math.min((double) getWidth() / viewport.cols, (double) getHeight() / viewport.rows);
+        }
+
+        private void jumpTo(Point point) {
+            if (viewport.rows == 0) return;
+            double scale = scale();
+            viewport.centerOn(point.y / scale, point.x / scale);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(Color.GRAY);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (viewport.rows == 0 || viewport.cols == 0) return;
+
+            // one sampled cell per minimap pixel, so this costs the same for any maze
+            double scale = scale();
+            int width = Math.max(1, (int) (viewport.cols * scale));
+            int height = Math.max(1, (int) (viewport.rows * scale));
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < height; y++) {
+                int row = Math.min(viewport.rows - 1, (int) (y / scale));
+                for (int x = 0; x < width; x++) {
+                    int col = Math.min(viewport.cols - 1, (int) (x / scale));
+                    image.setRGB(x, y, viewport.colors.colorAt(row, col).getRGB());
+                }
+            }
+            g.drawImage(image, 0, 0, null);
+
+            JViewport view = viewport.getViewport();
+            if (view != null) {
+                Rectangle visible = view.getViewRect();
+                double ratio = scale / viewport.zoom; // minimap pixels per viewport pixel
+                g.setColor(Color.RED);
+                g.drawRect((int) (visible.x * ratio), (int) (visible.y * ratio),
+                        Math.max(2, (int) (visible.width * ratio)), Math.max(2, (int) (visible.height * ratio)));
+            }
+        }
+    }
+}
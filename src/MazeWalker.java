@@ -0,0 +1,314 @@
+import java.util.*;
+
+// solvers that walk through the maze like a person would, one tile at a time, keeping (almost) nothing
+// about the tiles they passed: the wall follower only knows where it is and which way it faces,
+// Pledge adds a turn counter, and Tremaux leaves 2 bit marks on the passages it walked through
+// (4 bits per tile instead of queues, score maps and parent links)
+//
+// the only thing that grows is the path itself: every step is pushed on a stack and stepping back
+// onto a tile that is already on it cuts the loop off, so what's left at the end is a simple path
+//
+// teleports are treated as empty tiles, a walker can't find its way back through a random jump
+public class MazeWalker {
+
+    // gets every tile the walker steps on, returning false stops the walk
+    public interface StepListener {
+        boolean step(Tile tile);
+    }
+
+    // directions in the order of Tile.getValidNeighbors: down, up, right, left
+    private static final int[] TURN_RIGHT = {3, 2, 0, 1};
+    private static final int[] TURN_LEFT = {2, 3, 1, 0};
+    private static final int[] TURN_BACK = {1, 0, 3, 2};
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+    private long steps = 0;
+    // the last walk stopped without knowing whether there is a path (back where it started, or out of steps)
+    private boolean gaveUp = false;
+
+    // the loop free path walked so far and where each of its cells sits on it. the positions are kept in an open
+    // addressing table (linear probing, -1 = empty) and the cell of a slot is path[position], so a cell on the
+    // path costs its path entry and at most two table slots instead of a boxed map entry
+    private int[] path = new int[64];
+    private int pathSize = 0;
+    private int[] slots = new int[128];
+    private int slotShift = 32 - 7;
+
+    public MazeWalker(Tile[][] maze) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+    }
+
+    // keeps one hand on the wall until it gets to an end tile. returns the path or null if the walk came back
+    // to where it started (the end is on a wall that isn't connected to ours) or the listener stopped it
+    public int[] followWall(Tile start, boolean leftHand, StepListener listener) {
+        reset();
+        int row = start.getRow();
+        int col = start.getCol();
+        int heading = 0;
+        // every (tile, heading) state leads to exactly one next state, so there are at most 4 * cells of them
+        long limit = 4L * rows * cols + 4;
+
+        while (true) {
+            if (!visit(row, col, listener)) return null;
+            if (maze[row][col].isEnd()) return finishPath();
+
+            int[] order = leftHand
+                    ? new int[] {TURN_LEFT[heading], heading, TURN_RIGHT[heading], TURN_BACK[heading]}
+                    : new int[] {TURN_RIGHT[heading], heading, TURN_LEFT[heading], TURN_BACK[heading]};
+            int move = firstOpen(row, col, order);
+            if (move < 0) return null; // walled in on all sides
+            heading = move;
+            row += ParentLinks.ROW_STEP[heading];
+            col += ParentLinks.COL_STEP[heading];
+
+            // back where we started facing the same way: we're going around in circles
+            if ((row == start.getRow() && col == start.getCol() && heading == 0) || steps >= limit) {
+                gaveUp = true;
+                return null;
+            }
+        }
+    }
+
+    // Pledge's algorithm aimed at a goal: walk towards the goal, when a wall is in the way follow it with the
+    // left hand and count the turns, and let go of it once the turns add up to zero again. this gets around
+    // walls that aren't connected to anything, where plain wall following would circle forever.
+    // it can still get stuck in pockets, so it gives up after a fixed number of steps
+    public int[] pledge(Tile start, Tile goal, StepListener listener) {
+        reset();
+        int row = start.getRow();
+        int col = start.getCol();
+        int heading = 0;
+        int turns = 0;
+        boolean following = false;
+        long limit = 16L * rows * cols;
+
+        while (steps < limit) {
+            if (!visit(row, col, listener)) return null;
+            if (maze[row][col].isEnd()) return finishPath();
+
+            if (!following) {
+                heading = towards(row, col, goal);
+                if (!isOpen(row, col, heading)) {
+                    // wall ahead: turn right until there is a way, the wall stays on our left
+                    following = true;
+                    turns = 0;
+                    while (!isOpen(row, col, heading) && turns > -4) {
+                        heading = TURN_RIGHT[heading];
+                        turns--;
+                    }
+                    if (turns == -4) return null; // walled in on all sides
+                }
+            } else {
+                // left hand on the wall: left if we can, else straight, else right, else back
+                if (isOpen(row, col, TURN_LEFT[heading])) {
+                    heading = TURN_LEFT[heading];
+                    turns++;
+                } else if (!isOpen(row, col, heading)) {
+                    if (isOpen(row, col, TURN_RIGHT[heading])) {
+                        heading = TURN_RIGHT[heading];
+                        turns--;
+                    } else {
+                        heading = TURN_BACK[heading];
+                        turns -= 2;
+                    }
+                }
+            }
+
+            row += ParentLinks.ROW_STEP[heading];
+            col += ParentLinks.COL_STEP[heading];
+            // facing the way we hit the wall with all the turns undone, let go of it
+            if (following && turns == 0) following = false;
+        }
+        gaveUp = true;
+        return null;
+    }
+
+    // Tremaux's algorithm: every passage between two tiles gets a mark each time we walk through it (0, 1 or 2).
+    // new tiles are explored through unmarked passages (closest to the goal first), coming into an explored tile
+    // through a new passage turns us around, and a passage is never walked a third time. so it always ends:
+    // at an end tile, or back at the start with everything marked twice (no path)
+    public int[] tremaux(Tile start, Tile goal, StepListener listener) {
+        reset();
+        // 2 bits for the passage down and 2 for the passage to the right of every tile
+        long[] marks = new long[(int) (((long) rows * cols * 4 + 63) >>> 6)];
+        int row = start.getRow();
+        int col = start.getCol();
+        int back = -1; // the direction of the passage we came in through
+
+        while (true) {
+            if (!visit(row, col, listener)) return null;
+            if (maze[row][col].isEnd()) return finishPath();
+
+            int move = -1;
+            boolean seenBefore = false;
+            for (int dir = 0; dir < 4; dir++) {
+                if (dir != back && isOpen(row, col, dir) && mark(marks, row, col, dir) > 0) seenBefore = true;
+            }
+
+            if (back >= 0 && seenBefore && mark(marks, row, col, back) == 1) {
+                // a loop brought us to a tile we know, go back the way we came
+                move = back;
+            } else {
+                move = unmarkedTowards(marks, row, col, back, goal);
+                if (move < 0 && back >= 0 && mark(marks, row, col, back) < 2) {
+                    move = back;
+                }
+                if (move < 0) {
+                    // everything here is explored, leave through the passage we first came in by
+                    for (int dir = 0; dir < 4 && move < 0; dir++) {
+                        if (dir != back && isOpen(row, col, dir) && mark(marks, row, col, dir) == 1) move = dir;
+                    }
+                }
+                if (move < 0) return null; // every passage walked twice, there is no path
+            }
+
+            addMark(marks, row, col, move);
+            row += ParentLinks.ROW_STEP[move];
+            col += ParentLinks.COL_STEP[move];
+            back = TURN_BACK[move];
+        }
+    }
+
+    // the unmarked passage out of a tile that leads closest to the goal, -1 if there is none
+    private int unmarkedTowards(long[] marks, int row, int col, int back, Tile goal) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int dir = 0; dir < 4; dir++) {
+            if (dir == back || !isOpen(row, col, dir) || mark(marks, row, col, dir) != 0) continue;
+            int distance = Math.abs(row + ParentLinks.ROW_STEP[dir] - goal.getRow())
+                    + Math.abs(col + ParentLinks.COL_STEP[dir] - goal.getCol());
+            if (distance < bestDistance) {
+                best = dir;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // bit position of the mark of the passage leaving a tile in a direction, every passage belongs
+    // to the tile above it or to the left of it
+    private long markBit(int row, int col, int dir) {
+        switch (dir) {
+            case 0: return ((long) row * cols + col) * 4;
+            case 1: return ((long) (row - 1) * cols + col) * 4;
+            case 2: return ((long) row * cols + col) * 4 + 2;
+            default: return ((long) row * cols + col - 1) * 4 + 2;
+        }
+    }
+
+    private int mark(long[] marks, int row, int col, int dir) {
+        long bit = markBit(row, col, dir);
+        return (int) (marks[(int) (bit >>> 6)] >>> (bit & 63)) & 3;
+    }
+
+    private void addMark(long[] marks, int row, int col, int dir) {
+        long bit = markBit(row, col, dir);
+        int word = (int) (bit >>> 6);
+        int value = Math.min(2, ((int) (marks[word] >>> (bit & 63)) & 3) + 1);
+        marks[word] = (marks[word] & ~(3L << (bit & 63))) | ((long) value << (bit & 63));
+    }
+
+    // the direction that gets closer to the goal along the axis where it is furthest away
+    private int towards(int row, int col, Tile goal) {
+        int dRow = goal.getRow() - row;
+        int dCol = goal.getCol() - col;
+        if (Math.abs(dRow) >= Math.abs(dCol)) return dRow >= 0 ? 0 : 1;
+        return dCol >= 0 ? 2 : 3;
+    }
+
+    private int firstOpen(int row, int col, int[] order) {
+        for (int dir : order) {
+            if (isOpen(row, col, dir)) return dir;
+        }
+        return -1;
+    }
+
+    private boolean isOpen(int row, int col, int dir) {
+        int newRow = row + ParentLinks.ROW_STEP[dir];
+        int newCol = col + ParentLinks.COL_STEP[dir];
+        return newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols && !maze[newRow][newCol].isWall();
+    }
+
+    private void reset() {
+        steps = 0;
+        gaveUp = false;
+        pathSize = 0;
+        Arrays.fill(slots, -1);
+    }
+
+    // one step onto a tile: tell the listener and add it to the path (cutting off a loop if we've been here)
+    private boolean visit(int row, int col, StepListener listener) {
+        steps++;
+        int cell = row * cols + col;
+        int slot = slotOf(cell);
+        if (slots[slot] >= 0) {
+            int position = slots[slot];
+            // from the top down, so the cells still in the table keep their path entries while it is tidied up
+            for (int i = pathSize - 1; i > position; i--) {
+                removeSlot(slotOf(path[i]));
+            }
+            pathSize = position + 1;
+        } else {
+            if (pathSize == path.length) path = Arrays.copyOf(path, pathSize * 2);
+            path[pathSize] = cell;
+            slots[slot] = pathSize++;
+            if (pathSize * 2 > slots.length) growSlots();
+        }
+        return listener == null || listener.step(maze[row][col]);
+    }
+
+    // the slot holding the cell, or the empty slot where it would go
+    private int slotOf(int cell) {
+        int mask = slots.length - 1;
+        int slot = home(cell);
+        while (slots[slot] >= 0 && path[slots[slot]] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int home(int cell) {
+        return (cell * 0x9E3779B1) >>> slotShift;
+    }
+
+    // empties a slot and moves later entries of its probe run back, so no lookup runs into a hole
+    private void removeSlot(int slot) {
+        int mask = slots.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slots[next] < 0) break;
+            int wanted = home(path[slots[next]]);
+            // the entry can fill the hole if its home isn't in the (cyclic) range after the hole up to it
+            boolean between = slot <= next ? (wanted > slot && wanted <= next) : (wanted > slot || wanted <= next);
+            if (!between) {
+                slots[slot] = slots[next];
+                slot = next;
+            }
+        }
+        slots[slot] = -1;
+    }
+
+    private void growSlots() {
+        slots = new int[slots.length * 2];
+        slotShift--;
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < pathSize; i++) {
+            slots[slotOf(path[i])] = i;
+        }
+    }
+
+    private int[] finishPath() {
+        return Arrays.copyOf(path, pathSize);
+    }
+
+    // number of steps of the last walk, counting every step (also the ones that were cut off the path)
+    public long getSteps() { return steps; }
+    // true if the last walk ended without a path and without proving there is none, the wall follower
+    // and Pledge can miss an end that can be reached
+    public boolean hasGivenUp() { return gaveUp; }
+}
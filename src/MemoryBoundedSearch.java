@@ -0,0 +1,226 @@
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+// optimal searches for mazes where A* runs out of memory
+// AStar() keeps a queue entry, a closed set entry and two map entries per tile it touches, more than 100 bytes
+// each. both searches here find the same path length as A* with the same heuristic but keep much less:
+//  - IDA* (iterative deepening A*) is a depth first search that gives up on every branch whose g + h goes over
+//    a threshold, and starts over with the smallest value that went over until it gets to an end. it only keeps
+//    the branch it is on, plus a fixed size transposition table: a tile reached again in the same iteration
+//    without a shorter way to it is not searched again. collisions just overwrite, so the table can be any size,
+//    a smaller one only means more tiles are searched twice
+//  - Fringe Search runs the same thresholds, but keeps the tiles that went over in a "later" list and goes on
+//    from them instead of starting over, with the cost and direction of every tile seen in two flat arrays
+//    (5 bytes per cell)
+// teleports are treated as empty tiles like in HPA* and ARA*, a random jump has no fixed cost to search with
+public class MemoryBoundedSearch {
+
+    private static final int DEFAULT_TABLE_BITS = 20;
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+
+    // transposition table for IDA*: the cell, the cost it was reached with and the iteration that stored it
+    private final int tableMask;
+    private final int tableShift;
+    private int[] tableCell;
+    private int[] tableCost;
+    private int[] tableIteration;
+
+    private long expansions = 0;
+    private int iterations = 0;
+    // the most memory the last search needed: deepest branch (IDA*) or longest list (Fringe)
+    private int peak = 0;
+
+    public MemoryBoundedSearch(Tile[][] maze) {
+        this(maze, DEFAULT_TABLE_BITS);
+    }
+
+    // the IDA* table gets 2^tableBits entries of 12 bytes
+    public MemoryBoundedSearch(Tile[][] maze, int tableBits) {
+        if (tableBits < 0 || tableBits > 28) {
+            throw new IllegalArgumentException("Table bits have to be between 0 and 28.");
+        }
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.tableMask = (1 << tableBits) - 1;
+        this.tableShift = 32 - tableBits;
+    }
+
+    // iterative deepening A* from start until it expands an end tile, estimate is the heuristic (it must not
+    // overestimate). every expanded tile goes to progress, which can stop the search
+    // returns the path as cell indices (row * cols + col), null if there is none or progress said to stop
+    public int[] idaStar(Tile start, ToIntFunction<Tile> estimate, SolverEngine.Progress progress) {
+        if (tableCell == null) {
+            tableCell = new int[tableMask + 1];
+            tableCost = new int[tableMask + 1];
+            tableIteration = new int[tableMask + 1];
+        }
+        Arrays.fill(tableIteration, 0);
+        expansions = 0;
+        iterations = 0;
+        peak = 0;
+
+        int[] branch = new int[1024];
+        byte[] nextDir = new byte[1024];
+        int startCell = start.getRow() * cols + start.getCol();
+        int threshold = estimate.applyAsInt(start);
+        while (true) {
+            iterations++;
+            record(startCell, 0);
+            int overThreshold = Integer.MAX_VALUE;
+            int depth = 0;
+            branch[0] = startCell;
+            nextDir[0] = -1;
+            while (depth >= 0) {
+                int cell = branch[depth];
+                Tile tile = maze[cell / cols][cell % cols];
+                if (nextDir[depth] < 0) {
+                    // first time on this tile: cut the branch here if it goes over, otherwise expand it
+                    int f = depth + estimate.applyAsInt(tile);
+                    if (f > threshold) {
+                        overThreshold = Math.min(overThreshold, f);
+                        depth--;
+                        continue;
+                    }
+                    expansions++;
+                    if (!progress.expanded(tile)) return null;
+                    if (tile.isEnd()) return Arrays.copyOf(branch, depth + 1);
+                    nextDir[depth] = 0;
+                }
+                if (nextDir[depth] == 4) {
+                    depth--;
+                    continue;
+                }
+                int dir = nextDir[depth]++;
+                int newRow = cell / cols + ParentLinks.ROW_STEP[dir];
+                int newCol = cell % cols + ParentLinks.COL_STEP[dir];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols || maze[newRow][newCol].isWall()) continue;
+                int next = newRow * cols + newCol;
+                if (depth > 0 && next == branch[depth - 1]) continue;
+                if (!record(next, depth + 1)) continue;
+
+                if (++depth == branch.length) {
+                    branch = Arrays.copyOf(branch, depth * 2);
+                    nextDir = Arrays.copyOf(nextDir, depth * 2);
+                }
+                branch[depth] = next;
+                nextDir[depth] = -1;
+                peak = Math.max(peak, depth + 1);
+            }
+            // nothing went over the threshold: every tile that can be reached was searched
+            if (overThreshold == Integer.MAX_VALUE) return null;
+            threshold = overThreshold;
+        }
+    }
+
+    // puts a tile reached at this cost into the table, false if this iteration got there as cheaply before
+    // (the earlier visit searched everything below it that this one could, with the same threshold)
+    private boolean record(int cell, int cost) {
+        int slot = (cell * 0x9E3779B1 >>> tableShift) & tableMask;
+        if (tableIteration[slot] == iterations && tableCell[slot] == cell && tableCost[slot] <= cost) return false;
+        tableCell[slot] = cell;
+        tableCost[slot] = cost;
+        tableIteration[slot] = iterations;
+        return true;
+    }
+
+    // fringe search from start until it expands an end tile, same arguments and result as idaStar
+    public int[] fringe(Tile start, ToIntFunction<Tile> estimate, SolverEngine.Progress progress) {
+        expansions = 0;
+        iterations = 0;
+        peak = 0;
+
+        int[] cost = new int[rows * cols];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        byte[] parentDir = new byte[rows * cols];
+        // list entries are (cost << 32 | cell), an entry whose cost isn't the tile's cost any more is skipped
+        long[] now = new long[1024];
+        long[] later = new long[1024];
+        int nowSize = 0;
+        int laterSize = 0;
+
+        int startCell = start.getRow() * cols + start.getCol();
+        cost[startCell] = 0;
+        now[nowSize++] = startCell;
+        int threshold = estimate.applyAsInt(start);
+        while (nowSize > 0) {
+            iterations++;
+            int overThreshold = Integer.MAX_VALUE;
+            while (nowSize > 0) {
+                long entry = now[--nowSize];
+                int cell = (int) entry;
+                int g = (int) (entry >>> 32);
+                if (g != cost[cell]) continue;
+
+                Tile tile = maze[cell / cols][cell % cols];
+                int f = g + estimate.applyAsInt(tile);
+                if (f > threshold) {
+                    overThreshold = Math.min(overThreshold, f);
+                    if (laterSize == later.length) later = Arrays.copyOf(later, laterSize * 2);
+                    later[laterSize++] = entry;
+                    continue;
+                }
+                expansions++;
+                if (!progress.expanded(tile)) return null;
+                if (tile.isEnd()) return walkBack(cell, startCell, parentDir);
+
+                // the children go on top of the list, so they are looked at right after their parent
+                // (the original inserts them behind the current node of a linked list, same order)
+                int row = cell / cols;
+                int col = cell % cols;
+                for (int dir = 3; dir >= 0; dir--) {
+                    int newRow = row + ParentLinks.ROW_STEP[dir];
+                    int newCol = col + ParentLinks.COL_STEP[dir];
+                    if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols || maze[newRow][newCol].isWall()) continue;
+                    int next = newRow * cols + newCol;
+                    if (g + 1 >= cost[next]) continue;
+                    cost[next] = g + 1;
+                    parentDir[next] = (byte) dir;
+                    if (nowSize == now.length) now = Arrays.copyOf(now, nowSize * 2);
+                    now[nowSize++] = (long) (g + 1) << 32 | next;
+                }
+                peak = Math.max(peak, nowSize + laterSize);
+            }
+
+            // the next iteration goes through the tiles that went over, in the order they went over
+            long[] swap = now;
+            now = later;
+            later = swap;
+            nowSize = laterSize;
+            laterSize = 0;
+            for (int i = 0, j = nowSize - 1; i < j; i++, j--) {
+                long entry = now[i];
+                now[i] = now[j];
+                now[j] = entry;
+            }
+            threshold = overThreshold;
+        }
+        return null;
+    }
+
+    private int[] walkBack(int goalCell, int startCell, byte[] parentDir) {
+        int length = 1;
+        for (int cell = goalCell; cell != startCell; cell = back(cell, parentDir[cell])) length++;
+        int[] path = new int[length];
+        int cell = goalCell;
+        for (int k = length - 1; k > 0; k--) {
+            path[k] = cell;
+            cell = back(cell, parentDir[cell]);
+        }
+        path[0] = startCell;
+        return path;
+    }
+
+    // the cell we came from when we got to this one in the given direction
+    private int back(int cell, int dir) {
+        return (cell / cols - ParentLinks.ROW_STEP[dir]) * cols + cell % cols - ParentLinks.COL_STEP[dir];
+    }
+
+    // getters, all about the last search
+    public long getExpansions() { return expansions; }
+    public int getIterations() { return iterations; }
+    public int getPeak() { return peak; }
+}
@@ -0,0 +1,286 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Paths;
+import java.util.*;
+
+// a maze grid that lives on disk instead of the heap, for mazes that are too big for a Tile[][]
+// the grid is cut into square pages (pageSize x pageSize cells) and only a few of them are kept in memory,
+// the least recently used page is written back and dropped when we need room for another one
+//
+// every cell is a single byte: the low 3 bits are the tile type, bit 3 is the visited flag
+// and bits 4-5 are the direction we came from (same order as Tile.getValidNeighbors: down, up, right, left)
+public class PagedMazeGrid implements Closeable {
+
+    // tile type codes
+    public static final int EMPTY = 0;
+    public static final int WALL = 1;
+    public static final int START = 2;
+    public static final int END = 3;
+    public static final int TELEPORT = 4;
+    public static final int COUNTER_UP = 5;
+    public static final int COUNTER_DOWN = 6;
+
+    public static final int TYPE_MASK = 0x7;
+    public static final int VISITED = 0x8;
+    public static final int PARENT_SHIFT = 4;
+    public static final int PARENT_MASK = 0x3 << PARENT_SHIFT;
+
+    private static final int MAGIC = 0x4D5A5047; // "MZPG"
+    private static final int HEADER_SIZE = 64;
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int pageSize;
+    private final int pagesAcross;
+    private final long startIndex;
+    private final long endIndex;
+
+    // the resident pages in access order, the eldest one gets evicted once we go over the limit
+    private final LinkedHashMap<Integer, Page> cache;
+    private final int maxResidentPages;
+    private long pageIns = 0;
+    private long pageOuts = 0;
+
+    // the last page we touched, most accesses hit the same page so this skips the map lookup
+    private int lastPageId = -1;
+    private Page lastPage;
+
+    private static class Page {
+        final byte[] data;
+        boolean dirty;
+
+        Page(byte[] data) { this.data = data; }
+    }
+
+    private PagedMazeGrid(FileChannel channel, int maxResidentPages) throws IOException {
+        this.channel = channel;
+        this.maxResidentPages = Math.max(2, maxResidentPages);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a paged maze file.");
+        }
+        rows = header.getInt();
+        cols = header.getInt();
+        pageSize = header.getInt();
+        startIndex = header.getLong();
+        endIndex = header.getLong();
+        pagesAcross = (cols + pageSize - 1) / pageSize;
+
+        cache = new LinkedHashMap<Integer, Page>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                if (size() <= PagedMazeGrid.this.maxResidentPages) return false;
+                writeBack(eldest.getKey(), eldest.getValue());
+                if (eldest.getKey() == lastPageId) lastPageId = -1;
+                return true;
+            }
+        };
+    }
+
+    // opens an existing page file
+    public static PagedMazeGrid open(String pageFile, int maxResidentPages) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(pageFile), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new PagedMazeGrid(channel, maxResidentPages);
+    }
+
+    // converts a text maze into a page file and opens it
+    // the text is streamed one band of pageSize rows at a time, so the whole maze never has to fit in memory
+    // the characters get the same checks (and the same error messages) as MazeLoader.load
+    public static PagedMazeGrid create(String textFile, String pageFile, int pageSize, int maxResidentPages) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(textFile), 1 << 16);
+             FileChannel channel = FileChannel.open(Paths.get(pageFile), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            int cols = -1;
+            int rows = 0;
+            long startIndex = -1;
+            long endIndex = -1;
+            int startCount = 0;
+            int endCount = 0;
+            byte[][] band = null;
+            int bandRows = 0;
+            int pagesAcross = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                // skip empty lines
+                if (line.trim().isEmpty())
+                    continue;
+
+                if (cols == -1) {
+                    cols = line.length();
+                    pagesAcross = (cols + pageSize - 1) / pageSize;
+                    band = new byte[pageSize][cols];
+                } else if (line.length() != cols) {
+                    throw new IllegalArgumentException("All rows must be the same length.");
+                }
+
+                byte[] row = band[bandRows];
+                for (int j = 0; j < cols; j++) {
+                    char ch = line.charAt(j);
+                    int code = typeCode(ch);
+                    if (code < 0) {
+                        throw new IllegalArgumentException("Invalid character found: '" + ch + "' at (" + rows + ", " + j + ")");
+                    }
+                    if (code == START) {
+                        startCount++;
+                        startIndex = (long) rows * cols + j;
+                    } else if (code == END) {
+                        endCount++;
+                        endIndex = (long) rows * cols + j;
+                    }
+                    row[j] = (byte) code;
+                }
+                rows++;
+                bandRows++;
+
+                if (bandRows == pageSize) {
+                    writeBand(channel, band, bandRows, rows / pageSize - 1, pagesAcross, pageSize, cols);
+                    bandRows = 0;
+                }
+            }
+            if (cols == -1) {
+                throw new IllegalArgumentException("Maze file is empty.");
+            }
+            if (bandRows > 0) {
+                writeBand(channel, band, bandRows, rows / pageSize, pagesAcross, pageSize, cols);
+            }
+
+            // Check tile counts
+            if (startCount != 1) throw new IllegalArgumentException("Maze must have exactly one start tile (A).");
+            if (endCount != 1) throw new IllegalArgumentException("Maze must have exactly one end tile (B).");
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(rows).putInt(cols).putInt(pageSize).putLong(startIndex).putLong(endIndex);
+            header.clear();
+            channel.write(header, 0);
+        }
+        return open(pageFile, maxResidentPages);
+    }
+
+    // cuts a band of rows into pages and writes them, rows past the end of the maze are padded with walls
+    private static void writeBand(FileChannel channel, byte[][] band, int bandRows, int pageRow, int pagesAcross,
+                                  int pageSize, int cols) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(pageSize * pageSize);
+        for (int pageCol = 0; pageCol < pagesAcross; pageCol++) {
+            page.clear();
+            int firstCol = pageCol * pageSize;
+            for (int r = 0; r < pageSize; r++) {
+                for (int c = 0; c < pageSize; c++) {
+                    int col = firstCol + c;
+                    page.put(r < bandRows && col < cols ? band[r][col] : WALL);
+                }
+            }
+            page.flip();
+            channel.write(page, pageOffset(pageRow * pagesAcross + pageCol, pageSize));
+        }
+    }
+
+    private static long pageOffset(int pageId, int pageSize) {
+        return HEADER_SIZE + (long) pageId * pageSize * pageSize;
+    }
+
+    // maps a maze character to its type code, -1 if the character is not allowed
+    public static int typeCode(char ch) {
+        switch (ch) {
+            case ' ': return EMPTY;
+            case '#': return WALL;
+            case 'A': return START;
+            case 'B': return END;
+            case 'T': return TELEPORT;
+            case 'C': return COUNTER_UP;
+            case 'c': return COUNTER_DOWN;
+            default: return -1;
+        }
+    }
+
+    // returns the page holding the cell, reading it from disk if it isn't resident
+    private Page page(int row, int col) {
+        int pageId = (row / pageSize) * pagesAcross + col / pageSize;
+        if (pageId == lastPageId) return lastPage;
+
+        Page page = cache.get(pageId);
+        if (page == null) {
+            byte[] data = new byte[pageSize * pageSize];
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                long offset = pageOffset(pageId, pageSize);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            page = new Page(data);
+            pageIns++;
+            cache.put(pageId, page);
+        }
+        lastPageId = pageId;
+        lastPage = page;
+        return page;
+    }
+
+    private void writeBack(int pageId, Page page) {
+        if (!page.dirty) return;
+        try {
+            channel.write(ByteBuffer.wrap(page.data), pageOffset(pageId, pageSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.dirty = false;
+        pageOuts++;
+    }
+
+    // reads the byte of a cell
+    public int get(int row, int col) {
+        return page(row, col).data[(row % pageSize) * pageSize + col % pageSize];
+    }
+
+    // writes the byte of a cell
+    public void set(int row, int col, int value) {
+        Page page = page(row, col);
+        page.data[(row % pageSize) * pageSize + col % pageSize] = (byte) value;
+        page.dirty = true;
+    }
+
+    // clears the visited flags and parent directions of every cell, one page at a time
+    public void clearSearchState() {
+        for (int pageRow = 0; pageRow * pageSize < rows; pageRow++) {
+            for (int pageCol = 0; pageCol < pagesAcross; pageCol++) {
+                Page page = page(pageRow * pageSize, pageCol * pageSize);
+                for (int i = 0; i < page.data.length; i++) {
+                    page.data[i] &= TYPE_MASK;
+                }
+                page.dirty = true;
+            }
+        }
+    }
+
+    // writes all dirty pages back to disk
+    public void flush() {
+        for (Map.Entry<Integer, Page> entry : cache.entrySet()) {
+            writeBack(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    // getters
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getPageSize() { return pageSize; }
+    public long getStartIndex() { return startIndex; }
+    public long getEndIndex() { return endIndex; }
+    public long getPageIns() { return pageIns; }
+    public long getPageOuts() { return pageOuts; }
+}
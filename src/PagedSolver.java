@@ -0,0 +1,223 @@
+import java.io.*;
+import java.util.function.LongConsumer;
+
+// BFS and A* that run against a PagedMazeGrid, so the maze and the search state both stay on disk
+// visited flags and parent directions are written into the cell bytes of the pages,
+// and the frontier is a SpillingQueue, so the memory used is the page cache plus a couple of queue blocks
+//
+// teleport tiles are walked over like empty tiles here: a random jump anywhere in a maze that doesn't fit
+// in memory would touch a random page on every teleport. counter tiles still add or remove 50
+public class PagedSolver {
+
+    // same direction order as Tile.getValidNeighbors: down, up, right, left
+    private static final int[] ROW_STEP = {1, -1, 0, 0};
+    private static final int[] COL_STEP = {0, 0, 1, -1};
+
+    private final PagedMazeGrid grid;
+    private final int queueBlock;
+    private long expansions = 0;
+    private long counter = 0;
+    private long spilledBlocks = 0;
+
+    public PagedSolver(PagedMazeGrid grid, int queueBlock) {
+        this.grid = grid;
+        this.queueBlock = queueBlock;
+    }
+
+    // Breadth-First search, cells are marked visited (and get their parent) the moment they are queued
+    public boolean BFS() throws IOException {
+        reset();
+        int cols = grid.getCols();
+        long start = grid.getStartIndex();
+
+        try (SpillingQueue queue = new SpillingQueue(queueBlock)) {
+            markVisited(start, -1);
+            queue.offer(start);
+
+            while (!queue.isEmpty()) {
+                long current = queue.poll();
+                int row = (int) (current / cols);
+                int col = (int) (current % cols);
+                if (expand(row, col)) {
+                    spilledBlocks = queue.getSpilledBlocks();
+                    return true;
+                }
+
+                for (int dir = 0; dir < 4; dir++) {
+                    int newRow = row + ROW_STEP[dir];
+                    int newCol = col + COL_STEP[dir];
+                    if (!isOpen(newRow, newCol)) continue;
+                    int cell = grid.get(newRow, newCol);
+                    if ((cell & PagedMazeGrid.VISITED) != 0) continue;
+
+                    grid.set(newRow, newCol, cell | PagedMazeGrid.VISITED | (dir << PagedMazeGrid.PARENT_SHIFT));
+                    queue.offer((long) newRow * cols + newCol);
+                }
+            }
+            spilledBlocks = queue.getSpilledBlocks();
+        }
+        System.out.println("No path found.");
+        return false;
+    }
+
+    // A* search with the Manhattan heuristic
+    // on a grid with unit steps the f score of a neighbour is either the same as ours or 2 more,
+    // so the open set is just two FIFO buckets (f and f + 2) that can both spill to disk
+    // a cell is closed when it is expanded, the queue entries carry the direction they came from
+    public boolean AStar() throws IOException {
+        reset();
+        int cols = grid.getCols();
+        long start = grid.getStartIndex();
+        int endRow = (int) (grid.getEndIndex() / cols);
+        int endCol = (int) (grid.getEndIndex() % cols);
+
+        SpillingQueue current = new SpillingQueue(queueBlock);
+        SpillingQueue next = new SpillingQueue(queueBlock);
+        try {
+            // entries are cell index * 4 + direction from the parent, the start has no parent so it is flagged below
+            current.offer(start << 2);
+            boolean first = true;
+
+            while (!current.isEmpty() || !next.isEmpty()) {
+                if (current.isEmpty()) {
+                    spilledBlocks += current.getSpilledBlocks();
+                    current.close();
+                    current = next;
+                    next = new SpillingQueue(queueBlock);
+                }
+
+                long entry = current.poll();
+                long index = entry >>> 2;
+                int row = (int) (index / cols);
+                int col = (int) (index % cols);
+                int cell = grid.get(row, col);
+                if ((cell & PagedMazeGrid.VISITED) != 0) continue;
+
+                // the first time a cell comes out of the buckets it has its cheapest parent
+                markVisited(index, first ? -1 : (int) (entry & 3));
+                first = false;
+                if (expand(row, col)) return true;
+
+                int h = Math.abs(row - endRow) + Math.abs(col - endCol);
+                for (int dir = 0; dir < 4; dir++) {
+                    int newRow = row + ROW_STEP[dir];
+                    int newCol = col + COL_STEP[dir];
+                    if (!isOpen(newRow, newCol)) continue;
+                    if ((grid.get(newRow, newCol) & PagedMazeGrid.VISITED) != 0) continue;
+
+                    long newEntry = (((long) newRow * cols + newCol) << 2) | dir;
+                    int newH = Math.abs(newRow - endRow) + Math.abs(newCol - endCol);
+                    // moving towards the goal keeps f the same, moving away raises it by 2
+                    if (newH < h) {
+                        current.offer(newEntry);
+                    } else {
+                        next.offer(newEntry);
+                    }
+                }
+            }
+        } finally {
+            spilledBlocks += current.getSpilledBlocks() + next.getSpilledBlocks();
+            current.close();
+            next.close();
+        }
+        System.out.println("No path found.");
+        return false;
+    }
+
+    // counts the expansion, applies the counter tiles and checks for the goal
+    private boolean expand(int row, int col) {
+        expansions++;
+        counter++;
+        int type = grid.get(row, col) & PagedMazeGrid.TYPE_MASK;
+        if (type == PagedMazeGrid.COUNTER_UP) counter += 50;
+        if (type == PagedMazeGrid.COUNTER_DOWN) counter -= 50;
+        if (type == PagedMazeGrid.END) {
+            System.out.println("Reached the end! Final counter: " + counter);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isOpen(int row, int col) {
+        return row >= 0 && row < grid.getRows() && col >= 0 && col < grid.getCols()
+                && (grid.get(row, col) & PagedMazeGrid.TYPE_MASK) != PagedMazeGrid.WALL;
+    }
+
+    // marks a cell visited and stores the direction we came from (-1 for the start)
+    private void markVisited(long index, int dir) {
+        int row = (int) (index / grid.getCols());
+        int col = (int) (index % grid.getCols());
+        int cell = grid.get(row, col) & PagedMazeGrid.TYPE_MASK;
+        grid.set(row, col, cell | PagedMazeGrid.VISITED | (Math.max(dir, 0) << PagedMazeGrid.PARENT_SHIFT));
+    }
+
+    private void reset() {
+        grid.clearSearchState();
+        expansions = 0;
+        counter = 0;
+        spilledBlocks = 0;
+    }
+
+    // walks the parent directions from the end back to the start, handing every cell index to the consumer
+    // nothing is collected so this works for paths of any length, returns the number of cells on the path
+    public long walkPathBackwards(LongConsumer consumer) {
+        int cols = grid.getCols();
+        long start = grid.getStartIndex();
+        int row = (int) (grid.getEndIndex() / cols);
+        int col = (int) (grid.getEndIndex() % cols);
+        long length = 0;
+
+        while (true) {
+            long index = (long) row * cols + col;
+            consumer.accept(index);
+            length++;
+            if (index == start) break;
+
+            int cell = grid.get(row, col);
+            if ((cell & PagedMazeGrid.VISITED) == 0) {
+                throw new IllegalStateException("No path has been found yet.");
+            }
+            int dir = (cell & PagedMazeGrid.PARENT_MASK) >>> PagedMazeGrid.PARENT_SHIFT;
+            row -= ROW_STEP[dir];
+            col -= COL_STEP[dir];
+        }
+        return length;
+    }
+
+    // getters
+    public long getExpansions() { return expansions; }
+    public long getCounter() { return counter; }
+    public long getSpilledBlocks() { return spilledBlocks; }
+
+    // usage: java PagedSolver <maze.txt> [bfs|astar] [page size] [resident pages] [queue block]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java PagedSolver <maze.txt> [bfs|astar] [page size] [resident pages] [queue block]");
+            return;
+        }
+        String algorithm = args.length > 1 ? args[1] : "bfs";
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int residentPages = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        int queueBlock = args.length > 4 ? Integer.parseInt(args[4]) : 1 << 16;
+
+        File pageFile = File.createTempFile("maze", ".pages");
+        pageFile.deleteOnExit();
+        long startTime = System.currentTimeMillis();
+        try (PagedMazeGrid grid = PagedMazeGrid.create(args[0], pageFile.getPath(), pageSize, residentPages)) {
+            System.out.println("Paged " + grid.getRows() + "x" + grid.getCols() + " maze in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+
+            PagedSolver solver = new PagedSolver(grid, queueBlock);
+            long pageInsBefore = grid.getPageIns();
+            startTime = System.currentTimeMillis();
+            boolean found = algorithm.equalsIgnoreCase("astar") ? solver.AStar() : solver.BFS();
+            long elapsed = System.currentTimeMillis() - startTime;
+
+            long pathLength = found ? solver.walkPathBackwards(index -> { }) : 0;
+            System.out.println("Found: " + found + ", path length: " + pathLength + ", expansions: " + solver.getExpansions()
+                    + ", time: " + elapsed + " ms");
+            System.out.println("Page ins: " + (grid.getPageIns() - pageInsBefore) + ", page outs: " + grid.getPageOuts()
+                    + ", frontier blocks spilled: " + solver.getSpilledBlocks());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.*;
+
+// parent links for the whole maze packed as 2 bit directions per cell (32 cells per long)
+// instead of a full Tile reference on every tile. the direction is the step from the parent to the child,
+// in the same order as Tile.getValidNeighbors: down, up, right, left
+// teleports are the only parents that aren't next to their child, those go into a small side table
+// a second bitset (1 bit per cell) says which cells have a parent at all, the start and tiles the search
+// never reached have none, so walking back stops there instead of reading a 0 as DOWN
+public class ParentLinks {
+
+    // direction codes, JUMP is only used in move sequences for teleports
+    public static final int DOWN = 0;
+    public static final int UP = 1;
+    public static final int RIGHT = 2;
+    public static final int LEFT = 3;
+    public static final int JUMP = 4;
+
+    static final int[] ROW_STEP = {1, -1, 0, 0};
+    static final int[] COL_STEP = {0, 0, 1, -1};
+    private static final char[] LETTERS = {'D', 'U', 'R', 'L'};
+
+    private final int rows;
+    private final int cols;
+    private final long[] directions;
+    private final long[] linked;
+    // teleport destination cell index -> teleport source cell index
+    private final Map<Integer, Integer> jumps = new HashMap<>();
+
+    public ParentLinks(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.directions = new long[(int) (((long) rows * cols * 2 + 63) >>> 6)];
+        this.linked = new long[(int) (((long) rows * cols + 63) >>> 6)];
+    }
+
+    // records that we reached child from parent
+    public void set(Tile child, Tile parent) {
+        int index = child.getRow() * cols + child.getCol();
+        int dRow = child.getRow() - parent.getRow();
+        int dCol = child.getCol() - parent.getCol();
+
+        int dir = -1;
+        for (int d = 0; d < 4; d++) {
+            if (ROW_STEP[d] == dRow && COL_STEP[d] == dCol) dir = d;
+        }
+
+        linked[index >>> 6] |= 1L << index;
+        if (dir < 0) {
+            jumps.put(index, parent.getRow() * cols + parent.getCol());
+            return;
+        }
+        if (!jumps.isEmpty()) jumps.remove(index);
+        long bit = (long) index * 2;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        directions[word] = (directions[word] & ~(3L << shift)) | ((long) dir << shift);
+    }
+
+    // the parent of a cell, null for the start and for cells the search didn't reach
+    public Tile parentOf(Tile child, Tile[][] maze) {
+        int index = child.getRow() * cols + child.getCol();
+        if (!hasParent(index)) return null;
+        Integer jump = jumps.get(index);
+        if (jump != null) {
+            return maze[jump / cols][jump % cols];
+        }
+        int dir = directionOf(index);
+        return maze[child.getRow() - ROW_STEP[dir]][child.getCol() - COL_STEP[dir]];
+    }
+
+    private boolean hasParent(int index) {
+        return (linked[index >>> 6] & 1L << index) != 0;
+    }
+
+    private int directionOf(int index) {
+        long bit = (long) index * 2;
+        return (int) (directions[(int) (bit >>> 6)] >>> (bit & 63)) & 3;
+    }
+
+    public void clear() {
+        Arrays.fill(directions, 0);
+        Arrays.fill(linked, 0);
+        jumps.clear();
+    }
+
+    // walks back from the end to the start and packs the moves of the path, 2 bits per step
+    // (plus one side table entry per teleport) so even a path of millions of steps stays small
+    public MoveSequence movesBetween(Tile start, Tile end) {
+        MoveSequence moves = new MoveSequence(start.getRow() * cols + start.getCol());
+        int startIndex = moves.startIndex;
+        int index = end.getRow() * cols + end.getCol();
+        long limit = (long) rows * cols;
+
+        // the moves come out backwards, MoveSequence reads them back to front
+        while (index != startIndex) {
+            if (moves.size >= limit) {
+                throw new IllegalStateException("Parent links do not lead back to the start.");
+            }
+            if (!hasParent(index)) {
+                throw new IllegalStateException("Tile (" + index / cols + ", " + index % cols + ") was not reached from the start.");
+            }
+            Integer jump = jumps.get(index);
+            if (jump != null) {
+                moves.add(JUMP, index);
+                index = jump;
+            } else {
+                int dir = directionOf(index);
+                moves.add(dir, index);
+                index = (index / cols - ROW_STEP[dir]) * cols + (index % cols - COL_STEP[dir]);
+            }
+        }
+        return moves;
+    }
+
+    // the moves of one path from the start to the end
+    public class MoveSequence {
+        private final int startIndex;
+        private long[] packed = new long[4];
+        private int size = 0;
+        // move number (as added, so counted from the end) -> cell the teleport landed on
+        private final Map<Integer, Integer> jumpTargets = new HashMap<>();
+
+        private MoveSequence(int startIndex) {
+            this.startIndex = startIndex;
+        }
+
+        private void add(int move, int target) {
+            if (size == packed.length * 32) {
+                packed = Arrays.copyOf(packed, packed.length * 2);
+            }
+            if (move == JUMP) {
+                jumpTargets.put(size, target);
+            } else {
+                packed[size >>> 5] |= (long) move << ((size & 31) * 2);
+            }
+            size++;
+        }
+
+        // number of steps, the path has one more cell than this
+        public int size() { return size; }
+
+        // the k-th move from the start, one of the direction codes or JUMP
+        public int move(int k) {
+            int stored = size - 1 - k;
+            if (!jumpTargets.isEmpty() && jumpTargets.containsKey(stored)) return JUMP;
+            return (int) (packed[stored >>> 5] >>> ((stored & 31) * 2)) & 3;
+        }
+
+        // the cell index a JUMP move lands on
+        public int jumpTarget(int k) {
+            return jumpTargets.get(size - 1 - k);
+        }
+
+        // iterates the cells of the path from start to end without building a list
+        public Iterator<Tile> cells(Tile[][] maze) {
+            return new Iterator<Tile>() {
+                private int k = -1;
+                private int row = startIndex / cols;
+                private int col = startIndex % cols;
+
+                @Override
+                public boolean hasNext() { return k < size; }
+
+                @Override
+                public Tile next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    if (k >= 0) {
+                        int move = move(k);
+                        if (move == JUMP) {
+                            int target = jumpTarget(k);
+                            row = target / cols;
+                            col = target % cols;
+                        } else {
+                            row += ROW_STEP[move];
+                            col += COL_STEP[move];
+                        }
+                    }
+                    k++;
+                    return maze[row][col];
+                }
+            };
+        }
+
+        // writes the path as run length moves, e.g. "D12 R3 J5,7 L2"
+        // where J is a teleport jump to (row, col)
+        public void writeRunLength(Appendable out) throws java.io.IOException {
+            int k = 0;
+            boolean first = true;
+            while (k < size) {
+                if (!first) out.append(' ');
+                first = false;
+
+                int move = move(k);
+                if (move == JUMP) {
+                    int target = jumpTarget(k);
+                    out.append('J').append(String.valueOf(target / cols)).append(',').append(String.valueOf(target % cols));
+                    k++;
+                    continue;
+                }
+                int run = 1;
+                while (k + run < size && move(k + run) == move) run++;
+                out.append(LETTERS[move]).append(String.valueOf(run));
+                k += run;
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+import java.io.*;
+import java.util.*;
+
+// checks a path that some other program found against a maze, without solving the maze again
+// the path is read as a stream and checked move by move: it has to start on A, every move goes to a
+// neighbouring tile that isn't a wall (or jumps away from a teleport, like the J moves of writePathRunLength),
+// and it has to stop on a B. on the way the C / c tiles are added up the way acceptPath does (+50 / -50),
+// so the counter effect of the path can be checked too. the first thing that is wrong is reported with the
+// step, line and byte where it happened
+//
+// nothing is kept per step, only the tile we are on and a few sums, so a path of any length needs the
+// maze and one read buffer. two formats are understood:
+//   cells:      "row,col" pairs, the first one being the start, e.g. one "12,7" per line. any mix of
+//               whitespace, commas, semicolons and brackets separates the numbers, so "(12, 7) (13, 7)" works too
+//   run length: what writePathRunLength writes, "D12 R3 J5,7 L2" moving away from the start
+// with Format.AUTO the first character decides: a digit or a bracket means cells, a letter run length
+public class PathVerifier {
+
+    public enum Format { AUTO, CELLS, RUN_LENGTH }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // what checking one path found
+    public static class Result {
+        private final String violation;
+        private final long steps;
+        private final long line;
+        private final long offset;
+        private final int row;
+        private final int col;
+        private final long counterEffect;
+        private final long counterTiles;
+        private final long jumps;
+
+        private Result(String violation, long steps, long line, long offset, int row, int col,
+                       long counterEffect, long counterTiles, long jumps) {
+            this.violation = violation;
+            this.steps = steps;
+            this.line = line;
+            this.offset = offset;
+            this.row = row;
+            this.col = col;
+            this.counterEffect = counterEffect;
+            this.counterTiles = counterTiles;
+            this.jumps = jumps;
+        }
+
+        public boolean isValid() { return violation == null; }
+        // what is wrong with the path, null if nothing is
+        public String getViolation() { return violation; }
+        // moves checked, up to the violation if there is one
+        public long getSteps() { return steps; }
+        // where the violation is in the input (line 1 based, byte offset 0 based), -1 for int[] paths
+        public long getLine() { return line; }
+        public long getOffset() { return offset; }
+        // the last tile the path got to without a problem
+        public int getRow() { return row; }
+        public int getCol() { return col; }
+        // the sum of the C (+50) and c (-50) tiles the path stepped on, and how many of them there were
+        public long getCounterEffect() { return counterEffect; }
+        public long getCounterTiles() { return counterTiles; }
+        public long getJumps() { return jumps; }
+
+        @Override
+        public String toString() {
+            String summary = steps + " steps, " + jumps + " teleport jumps, counter effect " + counterEffect
+                    + " (" + counterTiles + " counter tiles)";
+            if (isValid()) return "VALID: " + summary + ", ends at " + row + "," + col;
+            return "INVALID at step " + steps + (line < 0 ? "" : " (line " + line + ", byte " + offset + ")")
+                    + ": " + violation + "; last good tile " + row + "," + col + ", " + summary;
+        }
+    }
+
+    private final Tile[][] maze;
+    private final int rows;
+    private final int cols;
+    private int startRow = -1;
+    private int startCol = -1;
+    // checked against the counter effect when set
+    private Long expectedCounterEffect = null;
+
+    public PathVerifier(Tile[][] maze) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        for (int i = 0; i < rows && startRow < 0; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (maze[i][j].isStart()) {
+                    startRow = i;
+                    startCol = j;
+                    break;
+                }
+            }
+        }
+    }
+
+    // makes a path with a different sum of C / c effects invalid, null to only report it
+    public void setExpectedCounterEffect(Long expected) { this.expectedCounterEffect = expected; }
+
+    // checks a path given as cell indices (row * cols + col), the way the grid engines return them
+    public Result verify(int[] path) {
+        Walk walk = new Walk(null);
+        for (int k = 0; k < path.length && walk.violation == null; k++) {
+            walk.visit(path[k] / cols, path[k] % cols);
+        }
+        return walk.finish();
+    }
+
+    public Result verify(InputStream in, Format format) throws IOException {
+        Input input = new Input(in);
+        Walk walk = new Walk(input);
+        int first = input.skipSeparators(false);
+        if (format == Format.AUTO) {
+            format = first >= 'A' && first <= 'Z' ? Format.RUN_LENGTH : Format.CELLS;
+        }
+        if (format == Format.CELLS) {
+            readCells(input, walk);
+        } else {
+            readRunLength(input, walk);
+        }
+        return walk.finish();
+    }
+
+    public Result verify(File file, Format format) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return verify(in, format);
+        }
+    }
+
+    private void readCells(Input input, Walk walk) throws IOException {
+        while (walk.violation == null && input.skipSeparators(true) >= 0) {
+            long row = input.readNumber();
+            if (row == Input.NOT_A_NUMBER || input.skipSeparators(true) < 0) {
+                walk.fail("expected a row,col pair");
+                return;
+            }
+            long col = input.readNumber();
+            if (col == Input.NOT_A_NUMBER) {
+                walk.fail("expected a row,col pair");
+                return;
+            }
+            walk.visit(row, col);
+        }
+    }
+
+    private void readRunLength(Input input, Walk walk) throws IOException {
+        walk.visit(startRow, startCol);
+        int letter;
+        while (walk.violation == null && (letter = input.skipSeparators(false)) >= 0) {
+            input.read();
+            if (letter == 'J') {
+                long row = input.readNumber();
+                long col = input.read() == ',' ? input.readNumber() : Input.NOT_A_NUMBER;
+                if (row == Input.NOT_A_NUMBER || col == Input.NOT_A_NUMBER) {
+                    walk.fail("expected J<row>,<col>");
+                    return;
+                }
+                walk.jump(row, col);
+                continue;
+            }
+            int dir = letter == 'D' ? ParentLinks.DOWN : letter == 'U' ? ParentLinks.UP
+                    : letter == 'R' ? ParentLinks.RIGHT : letter == 'L' ? ParentLinks.LEFT : -1;
+            long run = input.readNumber();
+            if (dir < 0 || run == Input.NOT_A_NUMBER || run < 1) {
+                walk.fail("expected a move like D12, R3, U1, L2 or J5,7");
+                return;
+            }
+            for (long k = 0; k < run && walk.violation == null; k++) {
+                walk.visit(walk.row + ParentLinks.ROW_STEP[dir], walk.col + ParentLinks.COL_STEP[dir]);
+            }
+        }
+    }
+
+    // the state of checking one path, kept out of the fields so one verifier can check several paths at once
+    private class Walk {
+        private final Input input;
+        private int row = -1;
+        private int col = -1;
+        private long steps = -1;
+        private long counterEffect = 0;
+        private long counterTiles = 0;
+        private long jumps = 0;
+        private String violation = null;
+        private long line = -1;
+        private long offset = -1;
+
+        Walk(Input input) {
+            this.input = input;
+        }
+
+        // the next tile of the path: the start for the first one, then a neighbour, or anywhere after a teleport
+        void visit(long newRow, long newCol) {
+            if (steps < 0) {
+                if (newRow != startRow || newCol != startCol) {
+                    fail("the path starts at " + newRow + "," + newCol + ", the start is at " + startRow + "," + startCol);
+                    return;
+                }
+                row = startRow;
+                col = startCol;
+                steps = 0;
+                return;
+            }
+            long distance = Math.abs(newRow - row) + Math.abs(newCol - col);
+            if (distance == 1) {
+                moveTo(newRow, newCol);
+            } else if (distance == 0) {
+                fail("stays on " + row + "," + col);
+            } else {
+                jump(newRow, newCol);
+            }
+        }
+
+        // a jump is only allowed away from a teleport tile, it can land on any tile that isn't a wall
+        void jump(long newRow, long newCol) {
+            if (!maze[row][col].isTeleport()) {
+                fail("jumps from " + row + "," + col + " to " + newRow + "," + newCol + " but only teleports can do that");
+                return;
+            }
+            jumps++;
+            moveTo(newRow, newCol);
+        }
+
+        private void moveTo(long newRow, long newCol) {
+            if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) {
+                fail("leaves the maze at " + newRow + "," + newCol);
+                return;
+            }
+            Tile tile = maze[(int) newRow][(int) newCol];
+            if (tile.isWall()) {
+                fail("goes into the wall at " + newRow + "," + newCol);
+                return;
+            }
+            if (tile.isCounterUp()) {
+                counterEffect += 50;
+                counterTiles++;
+            } else if (tile.isCounterDown()) {
+                counterEffect -= 50;
+                counterTiles++;
+            }
+            row = (int) newRow;
+            col = (int) newCol;
+            steps++;
+        }
+
+        void fail(String message) {
+            if (violation != null) return;
+            violation = message;
+            if (input != null) {
+                line = input.line;
+                offset = input.offset();
+            }
+        }
+
+        Result finish() {
+            if (violation == null) {
+                if (steps < 0) {
+                    fail(startRow < 0 ? "the maze has no start" : "the path is empty");
+                } else if (!maze[row][col].isEnd()) {
+                    fail("the path stops at " + row + "," + col + ", which isn't an end");
+                } else if (expectedCounterEffect != null && expectedCounterEffect != counterEffect) {
+                    fail("the counter tiles add up to " + counterEffect + ", expected " + expectedCounterEffect);
+                }
+            }
+            return new Result(violation, Math.max(steps, 0), line, offset, row, col, counterEffect, counterTiles, jumps);
+        }
+    }
+
+    // reads the path a byte at a time straight out of a fixed buffer, the formats are plain ASCII
+    // (a Reader or Scanner would turn every byte into a char and every number into a String first)
+    private static class Input {
+        static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        // bytes of the stream before the buffer, line breaks skipped so far
+        private long base = 0;
+        private long line = 1;
+
+        Input(InputStream in) {
+            this.in = in;
+        }
+
+        // refills an empty buffer, false at the end of the stream
+        private boolean fill() throws IOException {
+            base += limit;
+            position = 0;
+            limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+            return limit > 0;
+        }
+
+        long offset() { return base + position; }
+
+        int peek() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return buffer[position] & 0xFF;
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            if (c >= 0) position++;
+            return c;
+        }
+
+        // skips whitespace (and the punctuation between cells when asked to), returns the next byte or -1 at the end
+        int skipSeparators(boolean punctuation) throws IOException {
+            // the position is kept in a local while we loop, the fields are only written back when a buffer runs out
+            do {
+                byte[] bytes = buffer;
+                int end = limit;
+                for (int p = position; p < end; p++) {
+                    int c = bytes[p];
+                    if (c == '\n') {
+                        line++;
+                    } else if (c != ' ' && c != '\r' && c != '\t'
+                            && !(punctuation && (c == ',' || c == ';' || c == '(' || c == ')' || c == '[' || c == ']'))) {
+                        position = p;
+                        return c & 0xFF;
+                    }
+                }
+                position = end;
+            } while (fill());
+            return -1;
+        }
+
+        // a decimal number with an optional minus, NOT_A_NUMBER if there are no digits here
+        // numbers too big for the maze are cut off at a value that is still too big, they fail the bounds check
+        long readNumber() throws IOException {
+            boolean negative = peek() == '-';
+            if (negative) position++;
+            long value = 0;
+            int digits = 0;
+            do {
+                byte[] bytes = buffer;
+                int end = limit;
+                int p = position;
+                while (p < end) {
+                    int digit = bytes[p] - '0';
+                    if (digit < 0 || digit > 9) break;
+                    p++;
+                    if (value <= Integer.MAX_VALUE) value = value * 10 + digit;
+                }
+                digits += p - position;
+                position = p;
+                if (p < end) break;
+            } while (fill());
+            if (digits == 0) return NOT_A_NUMBER;
+            return negative ? -value : value;
+        }
+    }
+
+    // usage: java PathVerifier <maze file> [path file, - or nothing for standard input] [-f cells|rle] [-c counter effect]
+    // exits with 0 for a valid path, 1 for an invalid one and 2 if something couldn't be read
+    public static void main(String[] args) {
+        String mazeFile = null;
+        String pathFile = "-";
+        Format format = Format.AUTO;
+        Long expected = null;
+        try {
+            List<String> files = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-f" -> format = switch (args[++i]) {
+                        case "cells" -> Format.CELLS;
+                        case "rle" -> Format.RUN_LENGTH;
+                        default -> throw new IllegalArgumentException("Unknown format: " + args[i]);
+                    };
+                    case "-c" -> expected = Long.parseLong(args[++i]);
+                    default -> files.add(args[i]);
+                }
+            }
+            if (files.isEmpty() || files.size() > 2) throw new IllegalArgumentException("Need a maze file and at most one path file.");
+            mazeFile = files.get(0);
+            if (files.size() > 1) pathFile = files.get(1);
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.out.println("Usage: java PathVerifier <maze file> [path file | -] [-f cells|rle] [-c counter effect]");
+            System.exit(2);
+        }
+
+        try {
+            Tile[][] maze = CompactMaze.isCompactFile(mazeFile) ? CompactMaze.read(mazeFile).toTiles()
+                    : Tile.convertToTiles(new MazeLoader(true).load(mazeFile));
+            PathVerifier verifier = new PathVerifier(maze);
+            verifier.setExpectedCounterEffect(expected);
+
+            long startTime = System.nanoTime();
+            CountingStream in = new CountingStream(pathFile.equals("-") ? System.in : new FileInputStream(pathFile));
+            Result result;
+            try (in) {
+                result = verifier.verify(in, format);
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.println(result);
+            System.out.println(String.format(Locale.ROOT, "Read %d bytes in %.0f ms (%.0f MB/s)",
+                    in.count, seconds * 1000, in.count / 1e6 / Math.max(seconds, 1e-9)));
+            System.exit(result.isValid() ? 0 : 1);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not verify: " + (e.getMessage() == null ? e.toString() : e.getMessage()));
+            System.exit(2);
+        }
+    }
+
+    // counts the bytes that went through, for the throughput line
+    private static class CountingStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            int n = super.read(bytes, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Predicate;
+
+// performance regression check: solves a fixed corpus of generated mazes (same seeds every time) with every
+// algorithm, and compares the time and the expansions with a baseline file that is kept with the code
+// every (maze, algorithm) pair is warmed up first and then timed several times, the median is what counts.
+// a pair only counts as slower if both its median and its fastest run are over the threshold, so a few
+// unlucky runs don't fail the check. pairs that look slower are measured a second time before they are reported
+//
+// the engines that keep something between queries (the distance field, the HPA* clusters, the chokepoint
+// analysis, the bitboard, the component labels behind every search) are also timed on a fresh solver every run,
+// as "<algorithm> [cold]", so building those is measured too. a pair whose outcome or path length isn't the
+// one in the baseline is broken, however fast it got. and every path anytime A* hands out on the way is checked
+// on a set of small looping mazes: it has to start at the start and move one step at a time
+//
+// exits with 1 if anything got slower, needs more expansions or is broken, 2 if it couldn't run at all
+//
+// baseline format: one line per pair, tab separated: maze, algorithm, median ms, fastest ms, expansions,
+// outcome, path length (-1 without a path)
+// (# starts a comment; older baselines without the fastest column use the median for it, older baselines without
+// the outcome and the path length don't check them)
+public class PerfCheck {
+
+    // one maze of the corpus, generated the same way every time
+    private static class CorpusMaze {
+        final String name;
+        final MazeGenerator.Mode mode;
+        final int size;
+        final double wallDensity;
+        final long seed;
+        final int specials; // teleports, counter ups and counter downs each
+
+        CorpusMaze(String name, MazeGenerator.Mode mode, int size, double wallDensity, long seed, int specials) {
+            this.name = name;
+            this.mode = mode;
+            this.size = size;
+            this.wallDensity = wallDensity;
+            this.seed = seed;
+            this.specials = specials;
+        }
+    }
+
+    private static final CorpusMaze[] CORPUS = {
+        new CorpusMaze("perfect-201", MazeGenerator.Mode.BACKTRACKER, 201, 1.0, 1, 0),
+        new CorpusMaze("eller-301", MazeGenerator.Mode.ELLER, 301, 1.0, 2, 0),
+        new CorpusMaze("loops-301", MazeGenerator.Mode.ELLER, 301, 0.5, 3, 0),
+        new CorpusMaze("open-201", MazeGenerator.Mode.ELLER, 201, 0.2, 4, 0),
+        new CorpusMaze("specials-151", MazeGenerator.Mode.ELLER, 151, 0.8, 5, 2)
+    };
+
+    // the seed the solvers' teleports use, so the expansions are the same on every run
+    private static final long SOLVER_SEED = 42;
+    // no single solve may take longer than this, a runaway algorithm shows up as a timeout instead of a hang
+    private static final long SOLVE_TIMEOUT_MILLIS = 60_000;
+    // the warm up goes on for at least this long, with only a few quick pairs (-a) a handful of rounds
+    // is over before the JIT has compiled the search loops
+    private static final long MIN_WARMUP_MILLIS = 5_000;
+    // engines with something cached in the solver, they get a cold pair as well
+    private static final String[] CACHED = {"Breadth-First Search", "Hierarchical A*", "Distance Field", "Bitboard BFS",
+            "Chokepoint Segments"};
+    private static final String COLD = " [cold]";
+    // the mazes anytime A*'s paths are checked on: small and full of loops, so the search improves its path often
+    private static final int PATH_CHECK_MAZES = 60;
+    private static final int PATH_CHECK_SIZE = 41;
+
+    // what we measured (or what the baseline says) for one pair
+    private static class Measurement {
+        final double medianMillis;
+        final double fastestMillis;
+        final long expansions;
+        final String outcome;  // null in an older baseline
+        final int pathLength;
+
+        Measurement(double medianMillis, double fastestMillis, long expansions, String outcome, int pathLength) {
+            this.medianMillis = medianMillis;
+            this.fastestMillis = fastestMillis;
+            this.expansions = expansions;
+            this.outcome = outcome;
+            this.pathLength = pathLength;
+        }
+    }
+
+    private final int warmups;
+    private final int runs;
+
+    public PerfCheck(int warmups, int runs) {
+        this.warmups = warmups;
+        this.runs = runs;
+    }
+
+    // measures every pair of the corpus that is wanted, keys are "maze<TAB>algorithm", in corpus order
+    // the warm up and the timed runs go round the whole corpus instead of repeating one pair, so every pair
+    // is timed with the JIT in the same state and a hiccup of the machine is spread over all of them
+    private Map<String, Measurement> measure(Predicate<String> wanted, PrintStream console) throws IOException {
+        List<String> keys = new ArrayList<>();
+        List<MazeSolver> solvers = new ArrayList<>();
+        List<String> algorithms = new ArrayList<>();
+        // the maze of a cold pair, it gets a new solver for every run (null for the others)
+        List<Tile[][]> coldMazes = new ArrayList<>();
+        Path directory = Files.createTempDirectory("perfcheck");
+        try {
+            for (CorpusMaze entry : CORPUS) {
+                Path file = directory.resolve(entry.name + ".txt");
+                new MazeGenerator(entry.seed, entry.mode, entry.size, entry.size, entry.wallDensity)
+                        .generate(file.toString(), entry.specials, entry.specials, entry.specials);
+                Tile[][] maze = Tile.convertToTiles(new MazeLoader(true).load(file.toString()));
+                Files.delete(file);
+
+                // one solver per maze, like the UI: caches such as the HPA* clusters or the distance field
+                // are built during the warm up and the timed runs use them
+                MazeSolver solver = new MazeSolver(maze);
+                solver.setSeed(SOLVER_SEED);
+                for (String algorithm : SolverEngines.algorithms()) {
+                    String key = entry.name + "\t" + algorithm;
+                    if (wanted.test(key)) {
+                        keys.add(key);
+                        solvers.add(solver);
+                        algorithms.add(algorithm);
+                        coldMazes.add(null);
+                    }
+                    if (isCached(algorithm) && wanted.test(key + COLD)) {
+                        keys.add(key + COLD);
+                        solvers.add(null);
+                        algorithms.add(algorithm);
+                        coldMazes.add(maze);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+
+        long warmupEnd = System.nanoTime() + MIN_WARMUP_MILLIS * 1_000_000;
+        for (int round = 0; round < warmups || (warmups > 0 && System.nanoTime() < warmupEnd); round++) {
+            for (int i = 0; i < keys.size(); i++) {
+                solverFor(solvers.get(i), coldMazes.get(i)).solve(algorithms.get(i), new SearchBudget(SOLVE_TIMEOUT_MILLIS, 0));
+            }
+        }
+        double[][] times = new double[keys.size()][runs];
+        long[] expansions = new long[keys.size()];
+        String[] outcomes = new String[keys.size()];
+        int[] pathLengths = new int[keys.size()];
+        for (int round = 0; round < runs; round++) {
+            for (int i = 0; i < keys.size(); i++) {
+                MazeSolver solver = solverFor(solvers.get(i), coldMazes.get(i));
+                long startTime = System.nanoTime();
+                SolveResult result = solver.solve(algorithms.get(i), new SearchBudget(SOLVE_TIMEOUT_MILLIS, 0));
+                times[i][round] = (System.nanoTime() - startTime) / 1e6;
+                expansions[i] = result.getExpansions();
+                outcomes[i] = result.getStopReason().name();
+                pathLengths[i] = result.isFound() ? solver.reconstructPath(solver.getReachedEnd()).size() - 1 : -1;
+            }
+        }
+
+        Map<String, Measurement> results = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            double[] sorted = times[i];
+            Arrays.sort(sorted);
+            double median = runs % 2 == 1 ? sorted[runs / 2] : (sorted[runs / 2 - 1] + sorted[runs / 2]) / 2;
+            results.put(keys.get(i), new Measurement(median, sorted[0], expansions[i], outcomes[i], pathLengths[i]));
+            String[] pair = keys.get(i).split("\t");
+            console.printf(Locale.ROOT, "  %-14s %-37s %10.3f ms %12d expansions %-8s path %d%n", pair[0], pair[1], median,
+                    expansions[i], outcomes[i], pathLengths[i]);
+        }
+        return results;
+    }
+
+    private static boolean isCached(String algorithm) {
+        for (String name : CACHED) {
+            if (algorithm.startsWith(name)) return true;
+        }
+        return false;
+    }
+
+    // the shared solver of a warm pair, or a new one for a cold pair
+    private static MazeSolver solverFor(MazeSolver shared, Tile[][] coldMaze) {
+        if (coldMaze == null) return shared;
+        MazeSolver solver = new MazeSolver(coldMaze);
+        solver.setSeed(SOLVER_SEED);
+        return solver;
+    }
+
+    // runs anytime A* on the path check mazes and prints every path it handed out that doesn't start at the start
+    // or jumps, returns how many there were
+    private static int checkAnytimePaths(PrintStream console) throws IOException {
+        int broken = 0;
+        Path file = Files.createTempFile("perfcheck", ".txt");
+        try {
+            for (long seed = 1; seed <= PATH_CHECK_MAZES; seed++) {
+                new MazeGenerator(seed, MazeGenerator.Mode.ELLER, PATH_CHECK_SIZE, PATH_CHECK_SIZE, 0.5)
+                        .generate(file.toString(), 0, 0, 0);
+                Tile[][] maze = Tile.convertToTiles(new MazeLoader(true).load(file.toString()));
+                MazeSolver solver = new MazeSolver(maze);
+                int cols = maze[0].length;
+                int startCell = solver.getStart().getRow() * cols + solver.getStart().getCol();
+                long mazeSeed = seed;
+                int[] bad = {0};
+                solver.anytimeAStar((path, bound) -> {
+                    boolean steps = path[0] == startCell;
+                    for (int k = 1; k < path.length && steps; k++) {
+                        steps = Math.abs(path[k] / cols - path[k - 1] / cols) + Math.abs(path[k] % cols - path[k - 1] % cols) == 1;
+                    }
+                    if (!steps) {
+                        bad[0]++;
+                        console.printf(Locale.ROOT, "BROKEN   Anytime A* (ARA*): path of length %d within %.2f doesn't "
+                                + "walk from the start, check maze %d%n", path.length - 1, bound, mazeSeed);
+                    }
+                });
+                broken += bad[0];
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return broken;
+    }
+
+    private static Map<String, Measurement> readBaseline(String filename) throws IOException {
+        Map<String, Measurement> baseline = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] fields = line.split("\t");
+                if (fields.length != 4 && fields.length != 5 && fields.length != 7) {
+                    throw new IllegalArgumentException("Bad baseline line " + lineNumber + ": " + line);
+                }
+                double median = Double.parseDouble(fields[2]);
+                double fastest = fields.length >= 5 ? Double.parseDouble(fields[3]) : median;
+                long expansions = Long.parseLong(fields[fields.length >= 5 ? 4 : 3]);
+                String outcome = fields.length == 7 ? fields[5] : null;
+                int pathLength = fields.length == 7 ? Integer.parseInt(fields[6]) : -1;
+                baseline.put(fields[0] + "\t" + fields[1], new Measurement(median, fastest, expansions, outcome, pathLength));
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(String filename, Map<String, Measurement> results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+            writer.println("# PerfCheck baseline: maze, algorithm, median ms, fastest ms, expansions, outcome, path length");
+            writer.println("# written by: java PerfCheck --write-baseline (" + System.getProperty("java.version") + ", "
+                    + Runtime.getRuntime().availableProcessors() + " cpus)");
+            for (Map.Entry<String, Measurement> entry : results.entrySet()) {
+                Measurement measurement = entry.getValue();
+                writer.println(entry.getKey() + "\t" + String.format(Locale.ROOT, "%.3f\t%.3f",
+                        measurement.medianMillis, measurement.fastestMillis) + "\t" + measurement.expansions
+                        + "\t" + measurement.outcome + "\t" + measurement.pathLength);
+            }
+        }
+    }
+
+    // prints one line for every pair that got worse or broke, returns how many did
+    // partial is set when only some algorithms were measured, then the others aren't reported as missing
+    private static int compare(Map<String, Measurement> baseline, Map<String, Measurement> results,
+                               double timeThreshold, double expansionThreshold, double noiseMillis,
+                               boolean partial, PrintStream console) {
+        int regressions = 0;
+        for (Map.Entry<String, Measurement> entry : results.entrySet()) {
+            String pair = entry.getKey().replace("\t", " / ");
+            Measurement now = entry.getValue();
+            Measurement before = baseline.get(entry.getKey());
+            if (before == null) {
+                console.println("NEW      " + pair + " (not in the baseline)");
+                continue;
+            }
+
+            // an engine that quits early is fast, it has to come to the same end as before
+            if (before.outcome != null && (!before.outcome.equals(now.outcome) || before.pathLength != now.pathLength)) {
+                regressions++;
+                console.println("BROKEN   " + pair + ": " + before.outcome + " with a path of " + before.pathLength + " -> "
+                        + now.outcome + " with a path of " + now.pathLength);
+                continue;
+            }
+            boolean slower = isSlower(before, now, timeThreshold, noiseMillis);
+            boolean moreWork = now.expansions > before.expansions * (1 + expansionThreshold);
+            if (slower || moreWork) {
+                regressions++;
+                console.printf(Locale.ROOT, "SLOWER   %s: %.3f ms -> %.3f ms (%+.1f%%), expansions %d -> %d (%+.1f%%)%n",
+                        pair, before.medianMillis, now.medianMillis, change(before.medianMillis, now.medianMillis),
+                        before.expansions, now.expansions, change(before.expansions, now.expansions));
+            } else if (now.expansions != before.expansions) {
+                console.println("CHANGED  " + pair + ": expansions " + before.expansions + " -> " + now.expansions);
+            }
+        }
+        for (String pair : baseline.keySet()) {
+            if (!partial && !results.containsKey(pair)) console.println("MISSING  " + pair.replace("\t", " / ") + " (in the baseline but not measured)");
+        }
+        return regressions;
+    }
+
+    private static boolean isSlower(Measurement before, Measurement now, double timeThreshold, double noiseMillis) {
+        return now.medianMillis > before.medianMillis * (1 + timeThreshold)
+                && now.medianMillis - before.medianMillis > noiseMillis
+                && now.fastestMillis > before.fastestMillis * (1 + timeThreshold);
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? 0 : (now - before) * 100 / before;
+    }
+
+    // usage: java PerfCheck [--write-baseline] [-b baseline file] [-t time threshold] [-e expansion threshold]
+    //                       [-n noise ms] [-w warmups] [-r runs] [-a algorithm]
+    public static void main(String[] args) throws InterruptedException {
+        // DFS recurses once per tile on its path, the checks run on a thread with a big stack like solveAsync
+        int[] exitCode = {0};
+        Thread worker = new Thread(null, () -> exitCode[0] = run(args), "perf-check", 512L * 1024 * 1024);
+        worker.start();
+        worker.join();
+        System.exit(exitCode[0]);
+    }
+
+    private static int run(String[] args) {
+        boolean writeBaseline = false;
+        String baselineFile = "perf-baseline.tsv";
+        double timeThreshold = 0.30;
+        double expansionThreshold = 0.0;
+        double noiseMillis = 1.0;
+        int warmups = 3;
+        int runs = 7;
+        String filter = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--write-baseline" -> writeBaseline = true;
+                    case "-b" -> baselineFile = args[++i];
+                    case "-t" -> timeThreshold = Double.parseDouble(args[++i]);
+                    case "-e" -> expansionThreshold = Double.parseDouble(args[++i]);
+                    case "-n" -> noiseMillis = Double.parseDouble(args[++i]);
+                    case "-w" -> warmups = Integer.parseInt(args[++i]);
+                    case "-r" -> runs = Integer.parseInt(args[++i]);
+                    case "-a" -> filter = args[++i];
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (runs < 1 || warmups < 0) throw new IllegalArgumentException("Need at least one run.");
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.out.println("Usage: java PerfCheck [--write-baseline] [-b baseline file] [-t time threshold] [-e expansion threshold] [-n noise ms] [-w warmups] [-r runs] [-a algorithm]");
+            return 2;
+        }
+
+        // the solvers print every step they finish, keep only our own report on the console
+        PrintStream console = System.out;
+        try {
+            Map<String, Measurement> baseline = writeBaseline ? null : readBaseline(baselineFile);
+            console.println("Measuring " + CORPUS.length + " mazes (at least " + warmups + " warm up rounds, " + runs + " timed rounds)");
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            String algorithmFilter = filter;
+            PerfCheck check = new PerfCheck(warmups, runs);
+            Map<String, Measurement> results = check.measure(
+                    key -> algorithmFilter == null || key.substring(key.indexOf('\t') + 1).contains(algorithmFilter), console);
+
+            // whatever looks slower gets a second chance, the better of the two measurements counts
+            Set<String> suspects = new HashSet<>();
+            if (!writeBaseline) {
+                for (Map.Entry<String, Measurement> entry : results.entrySet()) {
+                    Measurement before = baseline.get(entry.getKey());
+                    if (before != null && isSlower(before, entry.getValue(), timeThreshold, noiseMillis)) {
+                        suspects.add(entry.getKey());
+                    }
+                }
+            }
+            if (!suspects.isEmpty()) {
+                console.println("Measuring " + suspects.size() + " pairs that look slower again");
+                for (Map.Entry<String, Measurement> entry : check.measure(suspects::contains, console).entrySet()) {
+                    if (entry.getValue().medianMillis < results.get(entry.getKey()).medianMillis) {
+                        results.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            System.setOut(console);
+
+            if (writeBaseline) {
+                writeBaseline(baselineFile, results);
+                console.println("Wrote " + results.size() + " baseline entries to " + baselineFile);
+                return 0;
+            }
+            int regressions = compare(baseline, results, timeThreshold, expansionThreshold, noiseMillis,
+                    filter != null, console);
+            int brokenPaths = 0;
+            if (filter == null || "Anytime A* (ARA*)".contains(filter)) {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                try {
+                    brokenPaths = checkAnytimePaths(console);
+                } finally {
+                    System.setOut(console);
+                }
+                if (brokenPaths > 0) console.println(brokenPaths + " broken anytime A* paths");
+            }
+            console.printf(Locale.ROOT, "%d of %d pairs regressed (threshold %.0f%% time, %.0f%% expansions)%n",
+                    regressions, results.size(), timeThreshold * 100, expansionThreshold * 100);
+            return regressions > 0 || brokenPaths > 0 ? 1 : 0;
+        } catch (IOException | RuntimeException e) {
+            System.setOut(console);
+            console.println("Perf check failed: " + e.getMessage());
+            return 2;
+        }
+    }
+}
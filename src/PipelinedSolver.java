@@ -0,0 +1,367 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+// reads a text maze and solves it at the same time
+// MazeLoader.load reads and checks the whole file before it returns, then convertToTiles builds a Tile per cell
+// and only then can a search start. here a parser thread checks the rows as they come in and hands them over
+// in blocks, and a BFS starts as soon as the row with the A is there. it expands into rows as they arrive and
+// only waits when a tile it expands has a neighbour in a row that isn't there yet. the path is handed to the
+// listener the moment it is found, usually long before the end of a big file
+//
+// what can only be checked at the end of the file (exactly one A, the number of B's) is checked when the
+// parser is done: solve() returns after that and throws like MazeLoader.load if the file turns out to be bad,
+// whatever the listener got before. the rows are kept as the bytes of the file, one per cell, so there is no
+// char[][] or Tile[][] at all. teleports are walked over like empty tiles (a jump could go to any row, also
+// ones that haven't been read yet), counter tiles on the path add or remove 50 like in acceptPath
+public class PipelinedSolver {
+
+    // rows handed to the search at once, a block of a 5000 wide maze is about 300 KB
+    private static final int BLOCK_ROWS = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // what one pipelined solve found
+    public static class Result {
+        private final int rows;
+        private final int cols;
+        private final int[] path;
+        private final long expansions;
+        private final long counter;
+        private final long firstResultMillis;
+        private final long totalMillis;
+
+        private Result(int rows, int cols, int[] path, long expansions, long counter, long firstResultMillis, long totalMillis) {
+            this.rows = rows;
+            this.cols = cols;
+            this.path = path;
+            this.expansions = expansions;
+            this.counter = counter;
+            this.firstResultMillis = firstResultMillis;
+            this.totalMillis = totalMillis;
+        }
+
+        public boolean isFound() { return path != null; }
+        // the path as cell indices (row * cols + col) from the start to an end, null if there is none
+        public int[] getPath() { return path; }
+        public int getRows() { return rows; }
+        public int getCols() { return cols; }
+        public long getExpansions() { return expansions; }
+        // expansions plus the counter tiles on the path, like the counter of the other engines
+        public long getCounter() { return counter; }
+        // from the start of solve() until the search was done, and until the whole file was read and checked
+        public long getFirstResultMillis() { return firstResultMillis; }
+        public long getTotalMillis() { return totalMillis; }
+
+        @Override
+        public String toString() {
+            return (isFound() ? "path of length " + (path.length - 1) : "no path") + " in a " + rows + "x" + cols
+                    + " maze, expansions " + expansions + ", counter " + counter + ", searched after " + firstResultMillis
+                    + " ms, file checked after " + totalMillis + " ms";
+        }
+    }
+
+    private final boolean allowMultipleEnds;
+
+    public PipelinedSolver(boolean allowMultipleEnds) {
+        this.allowMultipleEnds = allowMultipleEnds;
+    }
+
+    // reads and solves the file, listener (can be null) gets the path as soon as the search has it, before the
+    // file is checked to the end. the returned result is only given for a file that passed every check
+    public Result solve(String filename, Consumer<int[]> listener) throws IOException {
+        long startTime = System.nanoTime();
+        Rows rows = new Rows();
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("maze-parser");
+        try {
+            executor.submit(() -> rows.parse(filename));
+
+            Search search = new Search(rows);
+            int[] path = search.run();
+            long firstResultMillis = (System.nanoTime() - startTime) / 1_000_000;
+            if (listener != null) listener.accept(path);
+
+            rows.awaitEnd();
+            long counter = search.expansions;
+            if (path != null) {
+                for (int cell : path) {
+                    byte tile = rows.get(cell / rows.cols, cell % rows.cols);
+                    if (tile == 'C') counter += 50;
+                    if (tile == 'c') counter -= 50;
+                }
+            }
+            return new Result(rows.count, rows.cols, path, search.expansions, counter, firstResultMillis,
+                    (System.nanoTime() - startTime) / 1_000_000);
+        } finally {
+            rows.stop = true;
+            executor.shutdownNow();
+        }
+    }
+
+    // the rows read so far, written by the parser and read by the search
+    // count is only raised after the rows below it are in the array, so a reader that sees a count
+    // also sees the rows (both are volatile)
+    private class Rows {
+        private volatile byte[][] data = new byte[1024][];
+        private volatile int count = 0;
+        private volatile int cols = -1;
+        private volatile int startRow = -1;
+        private volatile int startCol = -1;
+        private volatile boolean done = false;
+        // what stopped the parser: a RuntimeException for a bad file, or an Error (out of memory for a huge one)
+        private volatile Throwable error = null;
+        // set when the search gave up, the parser stops at its next block
+        private volatile boolean stop = false;
+
+        byte get(int row, int col) {
+            return data[row][col];
+        }
+
+        // reads and checks the file row by row, publishing every BLOCK_ROWS rows
+        void parse(String filename) {
+            MazeEvents.Load event = new MazeEvents.Load();
+            event.begin();
+            int starts = 0;
+            int endCount = 0;
+            byte[][] parsed = data;
+            int parsedCount = 0;
+            try (InputStream in = new FileInputStream(filename)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                byte[] line = new byte[256];
+                int length = 0;
+                int read;
+                boolean atEnd = false;
+                while (!atEnd && !stop) {
+                    read = in.read(buffer);
+                    atEnd = read < 0;
+                    // the end of the file ends the last line even without a line break
+                    int limit = atEnd ? 1 : read;
+                    for (int k = 0; k < limit; k++) {
+                        byte b = atEnd ? (byte) '\n' : buffer[k];
+                        if (b != '\n') {
+                            if (length == line.length) line = Arrays.copyOf(line, length * 2);
+                            line[length++] = b;
+                            continue;
+                        }
+                        if (length > 0 && line[length - 1] == '\r') length--;
+                        if (isBlank(line, length)) {
+                            length = 0;
+                            continue;
+                        }
+
+                        // the same checks as MazeLoader, with the same messages
+                        if (cols < 0) {
+                            cols = length;
+                        } else if (length != cols) {
+                            throw new IllegalArgumentException("All rows must be the same length.");
+                        }
+                        if ((long) (parsedCount + 1) * cols > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("The maze has too many cells to solve while loading.");
+                        }
+                        for (int j = 0; j < length; j++) {
+                            byte ch = line[j];
+                            if (!(ch == 'A' || ch == 'B' || ch == 'C' || ch == 'c' || ch == 'T' || ch == '#' || ch == ' ')) {
+                                throw new IllegalArgumentException("Invalid character found: '" + (char) (ch & 0xFF)
+                                        + "' at (" + parsedCount + ", " + j + ")");
+                            }
+                            if (ch == 'A') {
+                                if (starts++ == 0) {
+                                    startRow = parsedCount;
+                                    startCol = j;
+                                }
+                            } else if (ch == 'B') {
+                                endCount++;
+                            }
+                        }
+
+                        if (parsedCount == parsed.length) parsed = Arrays.copyOf(parsed, parsedCount * 2);
+                        parsed[parsedCount++] = Arrays.copyOf(line, length);
+                        length = 0;
+                        if (parsedCount % BLOCK_ROWS == 0) publish(parsed, parsedCount);
+                    }
+                }
+                if (stop) return;
+                publish(parsed, parsedCount);
+
+                if (parsedCount == 0) throw new IllegalArgumentException("The maze file is empty.");
+                if (starts != 1) throw new IllegalArgumentException("Maze must have exactly one start tile (A).");
+                if (allowMultipleEnds) {
+                    if (endCount < 1) throw new IllegalArgumentException("Maze must have at least one end tile (B).");
+                } else if (endCount != 1) throw new IllegalArgumentException("Maze must have exactly one end tile (B).");
+                event.rows = parsedCount;
+                event.cols = cols;
+                event.succeeded = true;
+                finish(null);
+            } catch (IOException e) {
+                finish(new UncheckedIOException(e));
+            } catch (RuntimeException | Error e) {
+                // an Error has to reach the search as well, or it would wait for rows that never come
+                finish(e);
+            } finally {
+                event.file = filename;
+                event.format = "text, pipelined";
+                event.commit();
+            }
+        }
+
+        private boolean isBlank(byte[] line, int length) {
+            for (int j = 0; j < length; j++) {
+                if ((line[j] & 0xFF) > ' ') return false;
+            }
+            return true;
+        }
+
+        private synchronized void publish(byte[][] parsed, int parsedCount) {
+            data = parsed;
+            count = parsedCount;
+            notifyAll();
+        }
+
+        private synchronized void finish(Throwable failure) {
+            error = failure;
+            done = true;
+            notifyAll();
+        }
+
+        // waits until the row is there, false if the file ended before it. throws if the file is bad
+        boolean awaitRow(int row) {
+            if (row < count) return true;
+            synchronized (this) {
+                while (row >= count && !done && error == null) {
+                    waitUninterruptibly();
+                }
+            }
+            rethrowError();
+            return row < count;
+        }
+
+        // waits until the first A has been read, false if the file has none
+        boolean awaitStart() {
+            synchronized (this) {
+                while (startRow < 0 && !done && error == null) {
+                    waitUninterruptibly();
+                }
+            }
+            rethrowError();
+            return startRow >= 0;
+        }
+
+        // waits for the parser to finish and throws if the file didn't pass
+        void awaitEnd() {
+            synchronized (this) {
+                while (!done) {
+                    waitUninterruptibly();
+                }
+            }
+            rethrowError();
+        }
+
+        // hands what stopped the parser to the waiting thread
+        private void rethrowError() {
+            Throwable failure = error;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+        }
+
+        private void waitUninterruptibly() {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the maze file.");
+            }
+        }
+    }
+
+    // BFS over the rows that have arrived, with one byte of search state per cell allocated a row at a time
+    private static class Search {
+        private final Rows rows;
+        // direction we got to the tile from + 1, START for the start, 0 if not reached
+        private byte[][] parentDir = new byte[1024][];
+        private long expansions = 0;
+        private static final byte START = 5;
+
+        Search(Rows rows) {
+            this.rows = rows;
+        }
+
+        int[] run() {
+            if (!rows.awaitStart()) return null;
+            rows.awaitRow(rows.startRow);
+            int cols = rows.cols;
+            int startRow = rows.startRow;
+            int startCol = rows.startCol;
+            state(startRow)[startCol] = START;
+
+            int[] queue = new int[1024];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = startRow * cols + startCol;
+            while (head < tail) {
+                int cell = queue[head++];
+                int row = cell / cols;
+                int col = cell % cols;
+                expansions++;
+                if (rows.get(row, col) == 'B') return walkBack(cell, cols);
+
+                for (int dir = 0; dir < 4; dir++) {
+                    int newRow = row + ParentLinks.ROW_STEP[dir];
+                    int newCol = col + ParentLinks.COL_STEP[dir];
+                    if (newRow < 0 || newCol < 0 || newCol >= cols) continue;
+                    // the only place we wait for the parser: a neighbour in a row that hasn't arrived
+                    if (!rows.awaitRow(newRow)) continue;
+                    if (rows.get(newRow, newCol) == '#') continue;
+                    byte[] state = state(newRow);
+                    if (state[newCol] != 0) continue;
+                    state[newCol] = (byte) (dir + 1);
+
+                    if (tail == queue.length) {
+                        // the queue only holds the frontier, move it to the front before growing
+                        System.arraycopy(queue, head, queue, 0, tail - head);
+                        tail -= head;
+                        head = 0;
+                        if (tail > queue.length / 2) queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = newRow * cols + newCol;
+                }
+            }
+            return null;
+        }
+
+        private byte[] state(int row) {
+            if (row >= parentDir.length) parentDir = Arrays.copyOf(parentDir, Math.max(row + 1, parentDir.length * 2));
+            if (parentDir[row] == null) parentDir[row] = new byte[rows.cols];
+            return parentDir[row];
+        }
+
+        private int[] walkBack(int goal, int cols) {
+            List<Integer> cells = new ArrayList<>();
+            int cell = goal;
+            while (true) {
+                cells.add(cell);
+                int dir = parentDir[cell / cols][cell % cols];
+                if (dir == START) break;
+                cell = (cell / cols - ParentLinks.ROW_STEP[dir - 1]) * cols + cell % cols - ParentLinks.COL_STEP[dir - 1];
+            }
+            int[] path = new int[cells.size()];
+            for (int k = 0; k < path.length; k++) {
+                path[k] = cells.get(path.length - 1 - k);
+            }
+            return path;
+        }
+    }
+
+    // usage: java PipelinedSolver <maze.txt>
+    // prints when the path was there and when the file was done, next to loading and solving one after the other
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java PipelinedSolver <maze.txt>");
+            return;
+        }
+        long startTime = System.nanoTime();
+        Result result = new PipelinedSolver(true).solve(args[0], path -> System.out.println(
+                (path == null ? "No path" : "Path of length " + (path.length - 1)) + " after "
+                        + (System.nanoTime() - startTime) / 1_000_000 + " ms"));
+        System.out.println("Pipelined: " + result);
+    }
+}
@@ -0,0 +1,61 @@
+// limits for one search: a time limit, a cap on the number of expanded tiles, and a cancel flag
+// the solver checks it inside every algorithm's loop and stops with whatever it has found so far
+public class SearchBudget {
+
+    // reading the clock costs more than the rest of the check, so it is only read every this many expansions
+    // (or this many checks, for loops where the expansions don't move)
+    private static final int CLOCK_EVERY = 64;
+
+    private final long timeoutMillis;    // 0 means no time limit
+    private final long maxExpansions;    // 0 means no expansion limit
+    private long deadline;
+    // once the budget has run out it stays out until the next start(), so a search can't slip past it
+    private SolveResult.StopReason exhausted;
+    // when the clock is read next: at this many expansions, or after CLOCK_EVERY more checks. callers can
+    // pass counts that jump (sums over several workers), so this doesn't rely on seeing every number
+    private long nextClockCheck;
+    private int checksSinceClock;
+    private volatile boolean cancelled = false;
+
+    public SearchBudget(long timeoutMillis, long maxExpansions) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxExpansions = maxExpansions;
+    }
+
+    // a budget that never runs out (it can still be cancelled)
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, 0);
+    }
+
+    // starts the clock, called by the solver when the search begins
+    public void start() {
+        deadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : Long.MAX_VALUE;
+        exhausted = null;
+        nextClockCheck = 0;
+        checksSinceClock = 0;
+    }
+
+    // asks the running search to stop at its next check
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // returns why the search has to stop after this many expansions, or null if it can keep going
+    public SolveResult.StopReason check(long expansions) {
+        if (exhausted != null) return exhausted;
+        if (cancelled) {
+            exhausted = SolveResult.StopReason.CANCELLED;
+        } else if (maxExpansions > 0 && expansions >= maxExpansions) {
+            exhausted = SolveResult.StopReason.EXPANSION_LIMIT;
+        } else if (timeoutMillis > 0 && (expansions >= nextClockCheck || ++checksSinceClock >= CLOCK_EVERY)) {
+            nextClockCheck = expansions + CLOCK_EVERY;
+            checksSinceClock = 0;
+            if (System.nanoTime() >= deadline) exhausted = SolveResult.StopReason.TIMEOUT;
+        }
+        return exhausted;
+    }
+
+    public boolean isCancelled() { return cancelled; }
+    public long getTimeoutMillis() { return timeoutMillis; }
+    public long getMaxExpansions() { return maxExpansions; }
+}
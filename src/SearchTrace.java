@@ -0,0 +1,217 @@
+import java.io.*;
+import java.util.*;
+
+// a recording of one search: the seed the solver's teleports used and every tile it expanded,
+// marked as a dead end or put on the final path, in order. it can be replayed (and scrubbed back and forth)
+// without running the search again, and two traces can be compared
+//
+// events are packed as varints of (zigzag(cell - previous cell) << 2 | kind). most steps go to a neighbour,
+// so the delta is 1 or the row length and nearly every event fits in one or two bytes
+//
+// file format: magic "MZT1", rows, cols, seed, algorithm name, number of events, number of bytes, event bytes
+public class SearchTrace {
+
+    // event kinds
+    public static final int EXPANDED = 0;
+    public static final int DEAD_END = 1;
+    public static final int PATH = 2;
+
+    private static final int MAGIC = 0x4D5A5431; // "MZT1"
+
+    private final int rows;
+    private final int cols;
+    private final long seed;
+    private String algorithm;
+
+    private byte[] bytes = new byte[256];
+    private int byteCount = 0;
+    private int eventCount = 0;
+    private int lastCell = 0;
+
+    // decoded events, built on first use for replaying
+    private int[] cells;
+    private byte[] kinds;
+    // for every kind, the event number at which each cell first got it (-1 if never), so drawing any
+    // position of the replay is a single pass over the maze no matter how far we jump
+    private int[][] firstStep;
+
+    public SearchTrace(int rows, int cols, long seed) {
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+    }
+
+    // appends one event, this is all the recording costs while the solver runs
+    public void record(int kind, int row, int col) {
+        int cell = row * cols + col;
+        int delta = cell - lastCell;
+        lastCell = cell;
+        long value = ((((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL) << 2) | kind;
+
+        if (byteCount + 10 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        while ((value & ~0x7FL) != 0) {
+            bytes[byteCount++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[byteCount++] = (byte) value;
+        eventCount++;
+        cells = null;
+    }
+
+    public void recordPath(Iterator<Tile> path) {
+        while (path.hasNext()) {
+            Tile tile = path.next();
+            record(PATH, tile.getRow(), tile.getCol());
+        }
+    }
+
+    public void write(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeLong(seed);
+            out.writeUTF(algorithm == null ? "" : algorithm);
+            out.writeInt(eventCount);
+            out.writeInt(byteCount);
+            out.write(bytes, 0, byteCount);
+        }
+    }
+
+    public static SearchTrace read(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a search trace file: " + filename);
+            }
+            SearchTrace trace = new SearchTrace(in.readInt(), in.readInt(), in.readLong());
+            String algorithm = in.readUTF();
+            trace.algorithm = algorithm.isEmpty() ? null : algorithm;
+            trace.eventCount = in.readInt();
+            trace.byteCount = in.readInt();
+            if (trace.rows <= 0 || trace.cols <= 0 || trace.eventCount < 0 || trace.byteCount < 0) {
+                throw new IllegalArgumentException("Corrupt search trace file: " + filename);
+            }
+            trace.bytes = new byte[trace.byteCount];
+            in.readFully(trace.bytes);
+            trace.decode();
+            return trace;
+        }
+    }
+
+    // unpacks the varint stream into plain arrays (and checks it on the way)
+    private void decode() {
+        int[] decodedCells = new int[eventCount];
+        byte[] decodedKinds = new byte[eventCount];
+        int position = 0;
+        int cell = 0;
+        for (int i = 0; i < eventCount; i++) {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= byteCount || shift > 63) {
+                    throw new IllegalArgumentException("Search trace ends in the middle of event " + i);
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) break;
+                shift += 7;
+            }
+            int zigzag = (int) (value >>> 2);
+            cell += (zigzag >>> 1) ^ -(zigzag & 1);
+            if (cell < 0 || cell >= rows * cols || (value & 3) > PATH) {
+                throw new IllegalArgumentException("Invalid event " + i + " in search trace");
+            }
+            decodedCells[i] = cell;
+            decodedKinds[i] = (byte) (value & 3);
+        }
+
+        firstStep = new int[3][rows * cols];
+        for (int[] steps : firstStep) Arrays.fill(steps, -1);
+        for (int i = eventCount - 1; i >= 0; i--) {
+            firstStep[decodedKinds[i]][decodedCells[i]] = i;
+        }
+        cells = decodedCells;
+        kinds = decodedKinds;
+    }
+
+    // what a tile looks like after the first 'position' events: PATH, DEAD_END, EXPANDED or -1 if untouched yet
+    public int stateAt(int row, int col, int position) {
+        if (cells == null) decode();
+        int cell = row * cols + col;
+        for (int kind = PATH; kind >= EXPANDED; kind--) {
+            int step = firstStep[kind][cell];
+            if (step >= 0 && step < position) return kind;
+        }
+        return -1;
+    }
+
+    // the event at a position, as {row, col, kind}
+    public int[] eventAt(int position) {
+        if (cells == null) decode();
+        return new int[] {cells[position] / cols, cells[position] % cols, kinds[position]};
+    }
+
+    // how two traces of the same maze differ, as a few lines of text
+    public String compare(SearchTrace other) {
+        if (other.rows != rows || other.cols != cols) {
+            return "The traces are for different maze sizes (" + rows + "x" + cols + " and " + other.rows + "x" + other.cols + ").";
+        }
+        if (cells == null) decode();
+        if (other.cells == null) other.decode();
+
+        int firstDifference = -1;
+        int shared = Math.min(eventCount, other.eventCount);
+        for (int i = 0; i < shared && firstDifference < 0; i++) {
+            if (cells[i] != other.cells[i] || kinds[i] != other.kinds[i]) firstDifference = i;
+        }
+        if (firstDifference < 0 && eventCount != other.eventCount) firstDifference = shared;
+
+        int both = 0;
+        int onlyThis = 0;
+        int onlyOther = 0;
+        for (int cell = 0; cell < rows * cols; cell++) {
+            boolean here = firstStep[EXPANDED][cell] >= 0;
+            boolean there = other.firstStep[EXPANDED][cell] >= 0;
+            if (here && there) both++;
+            else if (here) onlyThis++;
+            else if (there) onlyOther++;
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(describe()).append('\n').append(other.describe()).append('\n');
+        text.append("Expanded by both: ").append(both).append(", only the first: ").append(onlyThis)
+            .append(", only the second: ").append(onlyOther).append('\n');
+        if (firstDifference < 0) {
+            text.append("The traces are identical.");
+        } else {
+            text.append("They go different ways at event ").append(firstDifference).append('.');
+        }
+        return text.toString();
+    }
+
+    private String describe() {
+        return (algorithm == null ? "Search" : algorithm) + ": " + count(EXPANDED) + " expanded, "
+                + count(DEAD_END) + " dead ends, path of " + count(PATH) + " tiles (seed " + seed + ")";
+    }
+
+    private int count(int kind) {
+        if (cells == null) decode();
+        int total = 0;
+        for (byte k : kinds) {
+            if (k == kind) total++;
+        }
+        return total;
+    }
+
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+    // getters
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public long getSeed() { return seed; }
+    public String getAlgorithm() { return algorithm; }
+    public int size() { return eventCount; }
+    public int getByteCount() { return byteCount; }
+}
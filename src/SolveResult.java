@@ -0,0 +1,51 @@
+// what came out of one run of a solver algorithm: whether it found the end, why it stopped and some metrics
+// when the budget ran out, bestTile is the expanded tile that got closest to the end
+// (MazeSolver.reconstructPath(bestTile) gives the partial path to it), it is null if nothing was expanded yet
+// or the algorithm keeps no parent links while it searches (the walkers, IDA*, Fringe, beam and plug-in engines)
+public class SolveResult {
+
+    // why the search stopped
+    public enum StopReason {
+        FOUND,
+        NO_PATH,
+        TIMEOUT,
+        EXPANSION_LIMIT,
+        CANCELLED,
+        // beam search left the way to the end out of its beam (there is a path, the beam was too narrow for it)
+        BEAM_PRUNED,
+        // a walker that can't tell whether there is a path stopped looking (the wall follower came back around
+        // to the start, Pledge ran out of steps), there may well be one
+        GAVE_UP
+    }
+
+    private final String algorithm;
+    private final StopReason stopReason;
+    private final long expansions;
+    private final int counter;
+    private final long elapsedMillis;
+    private final Tile bestTile;
+
+    public SolveResult(String algorithm, StopReason stopReason, long expansions, int counter, long elapsedMillis, Tile bestTile) {
+        this.algorithm = algorithm;
+        this.stopReason = stopReason;
+        this.expansions = expansions;
+        this.counter = counter;
+        this.elapsedMillis = elapsedMillis;
+        this.bestTile = bestTile;
+    }
+
+    // getters
+    public String getAlgorithm() { return algorithm; }
+    public StopReason getStopReason() { return stopReason; }
+    public boolean isFound() { return stopReason == StopReason.FOUND; }
+    public boolean isPartial() { return stopReason != StopReason.FOUND && stopReason != StopReason.NO_PATH; }
+    public long getExpansions() { return expansions; }
+    public int getCounter() { return counter; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public Tile getBestTile() { return bestTile; }
+
+    @Override
+    public String toString() {
+        return algorithm + ": " + stopReason + " after " + expansions + " expansions in " + elapsedMillis + " ms";
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.*;
+
+// a search algorithm that can be added to the solver without touching MazeSolver: put the class on the
+// classpath and list it in META-INF/services/SolverEngine, it then shows up next to the built-in algorithms
+// (in the UI, BatchSolver -a, PerfCheck and as a candidate for Auto)
+//
+// implementations need a public no argument constructor and must not keep state between calls,
+// one instance serves every solver
+public interface SolverEngine {
+
+    // gets every tile the engine expands, returning false means the search has to stop
+    // (the budget ran out or it was cancelled). this is also what drives the counter and the animation
+    interface Progress {
+        boolean expanded(Tile tile);
+    }
+
+    // the name shown in the list of algorithms, it has to be unique
+    String getName();
+
+    // finds a path from the start to any of the ends, as cell indices (row * cols + col) starting with the start
+    // and ending on an end tile. returns null if there is no path or if progress said to stop
+    int[] findPath(Tile[][] maze, Tile start, List<Tile> ends, Progress progress);
+}
@@ -0,0 +1,55 @@
+import java.util.*;
+
+// the list of algorithms the solver knows: the built-in ones (MazeSolver.ALGORITHMS), the engines found on the
+// classpath through ServiceLoader, and Auto which picks one of the others for every query
+public final class SolverEngines {
+
+    public static final String AUTO = "Auto";
+
+    // loaded on first use, the classpath doesn't change while we run
+    private static List<SolverEngine> plugins;
+
+    private SolverEngines() {}
+
+    public static synchronized List<SolverEngine> plugins() {
+        if (plugins == null) {
+            List<SolverEngine> found = new ArrayList<>();
+            Set<String> names = new HashSet<>(Arrays.asList(MazeSolver.ALGORITHMS));
+            names.add(AUTO);
+            for (SolverEngine engine : ServiceLoader.load(SolverEngine.class)) {
+                if (!names.add(engine.getName())) {
+                    System.out.println("Skipping solver engine " + engine.getClass().getName()
+                            + ", the name \"" + engine.getName() + "\" is taken.");
+                    continue;
+                }
+                found.add(engine);
+            }
+            plugins = Collections.unmodifiableList(found);
+        }
+        return plugins;
+    }
+
+    // the plugged in engine with exactly this name, null if there is none
+    public static SolverEngine find(String name) {
+        for (SolverEngine engine : plugins()) {
+            if (engine.getName().equals(name)) return engine;
+        }
+        return null;
+    }
+
+    // every algorithm that can actually be run: the built-in ones and then the plugged in ones
+    public static List<String> algorithms() {
+        List<String> names = new ArrayList<>(Arrays.asList(MazeSolver.ALGORITHMS));
+        for (SolverEngine engine : plugins()) {
+            names.add(engine.getName());
+        }
+        return names;
+    }
+
+    // what solve() understands, these are also the names shown in the UI
+    public static String[] names() {
+        List<String> names = algorithms();
+        names.add(AUTO);
+        return names.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// a FIFO queue of longs that only keeps two blocks in memory and spills everything in between to a temp file
+// BFS frontiers on huge mazes can hold millions of cells, this keeps the memory they need fixed
+public class SpillingQueue implements Closeable {
+
+    private final int blockSize;
+
+    // we read from the head block and write into the tail block
+    private long[] head;
+    private int headPos = 0;
+    private int headSize = 0;
+    private long[] tail;
+    private int tailSize = 0;
+
+    // full blocks that didn't fit in memory, in FIFO order on disk
+    private FileChannel spill;
+    private Path spillPath;
+    private final ByteBuffer ioBuffer;
+    private long spillRead = 0;
+    private long spillWrite = 0;
+    private long spilledBlocks = 0;
+
+    private long size = 0;
+
+    public SpillingQueue(int blockSize) {
+        this.blockSize = blockSize;
+        this.head = new long[blockSize];
+        this.tail = new long[blockSize];
+        this.ioBuffer = ByteBuffer.allocateDirect(blockSize * 8);
+    }
+
+    public void offer(long value) {
+        if (tailSize == blockSize) {
+            if (headPos == headSize && spillRead == spillWrite) {
+                // nothing is waiting in front of the tail so it can become the head directly
+                swapTailIntoHead();
+            } else {
+                spillTail();
+            }
+        }
+        tail[tailSize++] = value;
+        size++;
+    }
+
+    public long poll() {
+        if (headPos == headSize) {
+            if (spillRead < spillWrite) {
+                readSpilledBlock();
+            } else if (tailSize > 0) {
+                swapTailIntoHead();
+            } else {
+                throw new IllegalStateException("Queue is empty.");
+            }
+        }
+        size--;
+        return head[headPos++];
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public long size() { return size; }
+    public long getSpilledBlocks() { return spilledBlocks; }
+
+    private void swapTailIntoHead() {
+        long[] temp = head;
+        head = tail;
+        headSize = tailSize;
+        headPos = 0;
+        tail = temp;
+        tailSize = 0;
+    }
+
+    private void spillTail() {
+        try {
+            if (spill == null) {
+                spillPath = Files.createTempFile("maze-frontier", ".bin");
+                spill = FileChannel.open(spillPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ioBuffer.clear();
+            ioBuffer.asLongBuffer().put(tail, 0, tailSize);
+            ioBuffer.limit(tailSize * 8);
+            while (ioBuffer.hasRemaining()) {
+                spillWrite += spill.write(ioBuffer, spillWrite);
+            }
+            tailSize = 0;
+            spilledBlocks++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readSpilledBlock() {
+        try {
+            ioBuffer.clear();
+            ioBuffer.limit((int) Math.min(ioBuffer.capacity(), spillWrite - spillRead));
+            while (ioBuffer.hasRemaining()) {
+                spillRead += spill.read(ioBuffer, spillRead);
+            }
+            ioBuffer.flip();
+            LongBuffer longs = ioBuffer.asLongBuffer();
+            headSize = longs.remaining();
+            headPos = 0;
+            longs.get(head, 0, headSize);
+
+            // once everything on disk has been read we can start writing from the beginning again
+            if (spillRead == spillWrite) {
+                spillRead = 0;
+                spillWrite = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+            Files.deleteIfExists(spillPath);
+        }
+    }
+}
@@ -2,17 +2,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random; 
 
-// enum containing all the types of tiles to avoid repeating blocks of code
-enum TileType {
-    EMPTY,
-    WALL,
-    START,
-    END,
-    TELEPORT,
-    COUNTER_UP,
-    COUNTER_DOWN
-}
-
 public class Tile {
     
     // initialize our grid rows and columns sizes
@@ -20,8 +9,6 @@ public class Tile {
     private int col;
     // our tile type from the enum
     private TileType type;
-    // parent tile for backtracking after solving
-    private Tile parent; 
     // boolean to mark any checked tiles to prevent re-checking the same tile over and over 
     private boolean visited;
 
@@ -36,11 +23,10 @@ public class Tile {
     public int getRow() { return row; }
     public int getCol() { return col; }
     public TileType getType() { return type; }
-    public Tile getParent() { return parent; }
     
     // setters
     public void setVisited(boolean visited) { this.visited = visited; }
-    public void setParent(Tile parent) { this.parent = parent; }
+    public void setType(TileType type) { this.type = type; }
     
     // tile status
     public boolean isWall() { return type == TileType.WALL; }
@@ -55,6 +41,8 @@ public class Tile {
     
     // this class takes the output of the MazeLoader.load method and turns it into a 2d array of tiles rather than 2d array of chars
     public static Tile[][] convertToTiles(char[][] charMaze) {
+        MazeEvents.Convert event = new MazeEvents.Convert();
+        event.begin();
         
         // initialize the 2d array 
         int rows = charMaze.length;
@@ -98,6 +86,10 @@ public class Tile {
             }
         }
 
+        event.source = "text";
+        event.rows = rows;
+        event.cols = cols;
+        event.commit();
         return tileMaze;
     }
     
@@ -141,6 +133,12 @@ public class Tile {
     
     // this method applies all the special tiles effects ( increase or decrease counter, and teleportation)
     public Tile applySpecialEffect(Counter counter, Tile[][] maze) {
+        return applySpecialEffect(counter, maze, new Random());
+    }
+    
+    // same as above but the teleport destination comes from the given random generator,
+    // so a solver with a fixed seed teleports to the same tiles every run
+    public Tile applySpecialEffect(Counter counter, Tile[][] maze, Random random) {
         switch (this.type) {
             case COUNTER_UP:
                 counter.value += 50;
@@ -150,7 +148,6 @@ public class Tile {
                 break;
             case TELEPORT:
                 
-                Random random = new Random();
                 Tile newLocation = null;
                 // our boundary for the random location 
                 int rows = maze.length;
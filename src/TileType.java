@@ -0,0 +1,11 @@
+// enum containing all the types of tiles to avoid repeating blocks of code
+// (its own file so the classes that build or change tiles can use it too)
+public enum TileType {
+    EMPTY,
+    WALL,
+    START,
+    END,
+    TELEPORT,
+    COUNTER_UP,
+    COUNTER_DOWN
+}
@@ -0,0 +1,45 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// one thread per task executors: virtual threads when the JVM has them (Java 21+),
+// otherwise a cached pool of daemon platform threads so the same code still runs on older JVMs
+// the platform threads get a big stack because DFS recurses once per tile on its path
+public class VirtualThreads {
+
+    private static final long PLATFORM_STACK_SIZE = 512L * 1024 * 1024;
+
+    private VirtualThreads() { }
+
+    // true if newPerTaskExecutor hands out virtual threads
+    public static boolean isAvailable() {
+        return findFactoryMethod() != null;
+    }
+
+    // an executor that starts a new thread for every task, the caller shuts it down
+    public static ExecutorService newPerTaskExecutor(String name) {
+        Method factory = findFactoryMethod();
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // fall through to platform threads
+            }
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(null, task, name + "-" + count.incrementAndGet(), PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method findFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}